@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import org.openjdk.jmh.annotations.Param;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Lookup of benchmarked charsets through {@link CharsetProvider}, so every benchmark exercises exactly
+ * what the provider hands out.
+ */
+final class BenchmarkCharsets {
+    private static final String CHARSET_PARAM = "charsetName";
+
+    private BenchmarkCharsets() {
+    }
+
+    static Charset forName(String name) {
+        Iterator<Charset> charsets = new CharsetProvider().charsets();
+        while (charsets.hasNext()) {
+            Charset cs = charsets.next();
+            if (cs.name().equals(name)) {
+                return cs;
+            }
+        }
+        throw new IllegalArgumentException("Charset is not provided by CharsetProvider: " + name);
+    }
+
+    /**
+     * Fail the benchmark when a charset of {@link CharsetProvider} is missing from the hand maintained charset
+     * {@link Param} list, so a new charset is not silently left out of measurements.
+     * @param benchmark benchmark class with public {@code charsetName} field
+     * @param encodingOnly true if only charsets which can encode are benchmarked
+     */
+    static void checkAllBenchmarked(Class<?> benchmark, boolean encodingOnly) {
+        List<String> names;
+        try {
+            names = Arrays.asList(benchmark.getField(CHARSET_PARAM).getAnnotation(Param.class).value());
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("No " + CHARSET_PARAM + " parameter in " + benchmark.getName(), e);
+        }
+        Iterator<Charset> charsets = new CharsetProvider().charsets();
+        while (charsets.hasNext()) {
+            Charset cs = charsets.next();
+            if ((cs.canEncode() || !encodingOnly) && !names.contains(cs.name())) {
+                throw new IllegalStateException("Charset " + cs.name() + " is missing from "
+                        + CHARSET_PARAM + " parameter of " + benchmark.getSimpleName());
+            }
+        }
+    }
+}
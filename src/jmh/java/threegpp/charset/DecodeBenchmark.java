@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding throughput of every charset from {@link CharsetProvider}. Decoding only {@link TelecomCharset}
+ * gets GSM 7 bit input, as most of SIM records are.
+ * <p>
+ * Heap buffer benchmarks take array based fast paths of the decoders, direct buffer ones take generic paths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DecodeBenchmark {
+    private static final String GSM_CHARSET = "X-GSM7BIT";
+
+    @Param({"X-GSM7BIT", "X-GSM7BIT-PACKED", "X-UCS2-80", "X-UCS2-81", "X-UCS2-82", "X-GSM-UCS2"})
+    public String charsetName;
+
+    @Param
+    public Payload payload;
+
+    private Charset charset;
+    private byte[] bytes;
+    private CharsetDecoder decoder;
+    private ByteBuffer heapIn;
+    private CharBuffer heapOut;
+    private ByteBuffer directIn;
+    private CharBuffer directOut;
+
+    @Setup
+    public void setUp() {
+        BenchmarkCharsets.checkAllBenchmarked(DecodeBenchmark.class, false);
+        charset = BenchmarkCharsets.forName(charsetName);
+        Charset encodingCharset = charset.canEncode() ? charset : BenchmarkCharsets.forName(GSM_CHARSET);
+        bytes = payload.textFor(encodingCharset).getBytes(encodingCharset);
+        decoder = charset.newDecoder();
+
+        int maxLength = (int) Math.ceil(bytes.length * decoder.maxCharsPerByte()) + 1;
+        heapIn = ByteBuffer.wrap(bytes);
+        heapOut = CharBuffer.allocate(maxLength);
+        directIn = (ByteBuffer) ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        directOut = ByteBuffer.allocateDirect(maxLength * 2).asCharBuffer();
+    }
+
+    @Benchmark
+    public String newString() {
+        return new String(bytes, charset);
+    }
+
+    @Benchmark
+    public String telecomCodecs() {
+        return TelecomCodecs.decode(bytes, charset);
+    }
+
+    @Benchmark
+    public int reusedDecoderHeap() {
+        heapIn.rewind();
+        heapOut.clear();
+        return decode(heapIn, heapOut);
+    }
+
+    @Benchmark
+    public int reusedDecoderDirect() {
+        directIn.rewind();
+        directOut.clear();
+        return decode(directIn, directOut);
+    }
+
+    private int decode(ByteBuffer in, CharBuffer out) {
+        decoder.reset();
+        CoderResult result = decoder.decode(in, out, true);
+        if (result.isUnderflow()) {
+            result = decoder.flush(out);
+        }
+        if (!result.isUnderflow()) {
+            throw new IllegalStateException(result.toString());
+        }
+        return out.position();
+    }
+}
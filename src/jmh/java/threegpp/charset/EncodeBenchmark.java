@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding throughput of every charset from {@link CharsetProvider} which supports encoding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodeBenchmark {
+
+    @Param({"X-GSM7BIT", "X-GSM7BIT-PACKED", "X-UCS2-80", "X-UCS2-81", "X-UCS2-82"})
+    public String charsetName;
+
+    @Param
+    public Payload payload;
+
+    private Charset charset;
+    private String text;
+    private CharsetEncoder encoder;
+    private CharBuffer heapIn;
+    private ByteBuffer heapOut;
+    private CharBuffer directIn;
+    private ByteBuffer directOut;
+
+    @Setup
+    public void setUp() {
+        BenchmarkCharsets.checkAllBenchmarked(EncodeBenchmark.class, true);
+        charset = BenchmarkCharsets.forName(charsetName);
+        text = payload.textFor(charset);
+        encoder = charset.newEncoder();
+
+        int maxLength = (int) Math.ceil(text.length() * encoder.maxBytesPerChar()) + 1;
+        heapIn = CharBuffer.wrap(text.toCharArray());
+        heapOut = ByteBuffer.allocate(maxLength);
+        directIn = ByteBuffer.allocateDirect(text.length() * 2).asCharBuffer().put(text);
+        directOut = ByteBuffer.allocateDirect(maxLength);
+    }
+
+    @Benchmark
+    public byte[] stringGetBytes() {
+        return text.getBytes(charset);
+    }
+
+    @Benchmark
+    public byte[] telecomCodecs() {
+        return TelecomCodecs.encode(text, charset);
+    }
+
+    @Benchmark
+    public int reusedEncoderHeap() {
+        heapIn.rewind();
+        heapOut.clear();
+        return encode(heapIn, heapOut);
+    }
+
+    @Benchmark
+    public int reusedEncoderDirect() {
+        directIn.rewind();
+        directOut.clear();
+        return encode(directIn, directOut);
+    }
+
+    private int encode(CharBuffer in, ByteBuffer out) {
+        encoder.reset();
+        CoderResult result = encoder.encode(in, out, true);
+        if (result.isUnderflow()) {
+            result = encoder.flush(out);
+        }
+        if (!result.isUnderflow()) {
+            throw new IllegalStateException(result.toString());
+        }
+        return out.position();
+    }
+}
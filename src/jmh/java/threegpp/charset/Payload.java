@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import java.nio.charset.Charset;
+
+/**
+ * Typical payload sizes of telecom text.
+ */
+public enum Payload {
+    SINGLE_CHAR(1),
+    SMS_GSM(160),
+    SMS_UCS2(70),
+    SIM_RECORD(255),
+    MULTI_KB(4096);
+
+    // UCS2 0x81 and 0x82 keep the number of characters in a single byte
+    private static final int UCS2_POINTER_MAX_LENGTH = 255;
+
+    // basic table only: escape sequences take two septets and SMS_GSM would not fit a single message
+    private static final String GSM_SAMPLE = "Lorem ipsum dolor sit amet, (consectetur) adipiscing elit: 1234 & @ ";
+    private static final String UCS2_80_SAMPLE = "Текст сообщения. सही पाठ. Message text. ";
+    private static final String UCS2_81_SAMPLE = "Корректный текст. Valid Text. ";
+
+    private final int length;
+
+    Payload(int length) {
+        this.length = length;
+    }
+
+    /**
+     * Build a text of payload length which is encodable by given charset.
+     * @param charset charset to build text for
+     * @return text to encode
+     */
+    public String textFor(Charset charset) {
+        switch (charset.name()) {
+            case "X-UCS2-80":
+                return repeat(UCS2_80_SAMPLE, length);
+            case "X-UCS2-81":
+            case "X-UCS2-82":
+                return repeat(UCS2_81_SAMPLE, Math.min(length, UCS2_POINTER_MAX_LENGTH));
+            default:
+                return repeat(GSM_SAMPLE, length);
+        }
+    }
+
+    private static String repeat(String sample, int length) {
+        StringBuilder result = new StringBuilder(length);
+        while (result.length() < length) {
+            result.append(sample, 0, Math.min(sample.length(), length - result.length()));
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import threegpp.charset.gsm.GSMCharset;
+
+/**
+ * Chooses the shortest encoding of an alpha identifier (ETSI TS 102 221 Annex A, 3GPP TS 31.102) for a text.
+ * <p>
+ * Candidates are GSM 7 bit default alphabet (unpacked), UCS2 with tag 0x81 (8 bit half page pointer),
+ * UCS2 with tag 0x82 (16 bit base pointer) and UCS2 with tag 0x80. The text is scanned once, nothing is allocated,
+ * so one instance can plan millions of records. When two encodings give the same length, the one listed first wins.
+ * <p>
+ * Instances keep the result of the last {@link #plan(CharSequence)} call and are not thread safe.
+ */
+public final class AlphaIdentifierPlanner {
+
+    /**
+     * Encodings the planner chooses from.
+     */
+    public enum Encoding {
+        GSM,
+        UCS2_81,
+        UCS2_82,
+        UCS2_80
+    }
+
+    static final int UCS2_81_HEADER_LENGTH = 3;  // tag, number of chars, half page pointer
+    static final int UCS2_82_HEADER_LENGTH = 4;  // tag, number of chars, two bytes of base pointer
+    static final int UCS2_80_HEADER_LENGTH = 1;  // tag
+    static final int MAX_POINTER_TEXT_LENGTH = 0xFF;
+
+    private static final int BYTES_PER_UCS2_CHAR = 2;
+    private static final int FIRST_POINTER_CHAR = 0x80;     // lower chars are stored as is
+    private static final int MAX_BASE_OFFSET = 0x7F;
+    private static final int HALF_PAGE_MASK = 0x7F80;
+    private static final int MAX_HALF_PAGE_CHAR = 0x7FFF;
+    private static final int NOT_ENCODABLE = -1;
+
+    private static final GSMCharset GSM_CHARSET = new GSMCharset();
+
+    private Encoding encoding;
+    private int encodedLength = NOT_ENCODABLE;
+
+    /**
+     * Scan text and choose the shortest encoding.
+     * @param text text to plan
+     * @return chosen encoding or null when no encoding can represent the text (surrogates)
+     */
+    public Encoding plan(CharSequence text) {
+        final int length = text.length();
+
+        int gsmLength = 0;
+        boolean gsm = true;
+        boolean ucs2 = true;
+        boolean halfPage = length <= MAX_POINTER_TEXT_LENGTH;
+        boolean basePointer = halfPage;
+        int textHalfPage = NOT_ENCODABLE;
+        int minPointerChar = Character.MAX_VALUE;
+        int maxPointerChar = 0;
+
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+            if (gsm) {
+                int septets = GSM_CHARSET.septetLength(ch);
+                gsm = septets != 0;
+                gsmLength += septets;
+            }
+            if (ch < FIRST_POINTER_CHAR) {
+                continue;
+            }
+            if (Character.isSurrogate(ch)) {
+                ucs2 = false;
+                halfPage = false;
+                basePointer = false;
+            }
+            if (halfPage) {
+                int charHalfPage = ch & HALF_PAGE_MASK;
+                if (ch > MAX_HALF_PAGE_CHAR || (textHalfPage != NOT_ENCODABLE && textHalfPage != charHalfPage)) {
+                    halfPage = false;
+                }
+                textHalfPage = charHalfPage;
+            }
+            if (basePointer) {
+                minPointerChar = Math.min(minPointerChar, ch);
+                maxPointerChar = Math.max(maxPointerChar, ch);
+                basePointer = maxPointerChar - minPointerChar <= MAX_BASE_OFFSET;
+            }
+        }
+
+        encoding = null;
+        encodedLength = NOT_ENCODABLE;
+        if (gsm) {
+            choose(Encoding.GSM, gsmLength);
+        }
+        if (halfPage) {
+            choose(Encoding.UCS2_81, UCS2_81_HEADER_LENGTH + length);
+        }
+        if (basePointer) {
+            choose(Encoding.UCS2_82, UCS2_82_HEADER_LENGTH + length);
+        }
+        if (ucs2) {
+            choose(Encoding.UCS2_80, UCS2_80_HEADER_LENGTH + BYTES_PER_UCS2_CHAR * length);
+        }
+        return encoding;
+    }
+
+    /**
+     * @return encoding chosen by the last {@link #plan(CharSequence)} call, null if the text could not be encoded
+     */
+    public Encoding encoding() {
+        return encoding;
+    }
+
+    /**
+     * @return number of bytes of the text encoded with {@link #encoding()}, including the header,
+     * or -1 if the text could not be encoded
+     */
+    public int encodedLength() {
+        return encodedLength;
+    }
+
+    private void choose(Encoding candidate, int candidateLength) {
+        if (encoding == null || candidateLength < encodedLength) {
+            encoding = candidate;
+            encodedLength = candidateLength;
+        }
+    }
+}
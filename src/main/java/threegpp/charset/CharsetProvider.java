@@ -23,6 +23,7 @@ import threegpp.charset.gsm.GSM7BitPackedCharset;
 import threegpp.charset.gsm.GSMCharset;
 import threegpp.charset.ucs2.UCS2Charset80;
 import threegpp.charset.ucs2.UCS2Charset81;
+import threegpp.charset.ucs2.UCS2Charset82;
 
 import java.nio.charset.Charset;
 import java.util.*;
@@ -31,7 +32,7 @@ public class CharsetProvider extends java.nio.charset.spi.CharsetProvider {
 
     private static Charset [] allCharsets = {
             new GSM7BitPackedCharset(), new GSMCharset(),
-            new UCS2Charset80(), new UCS2Charset81(), new TelecomCharset()
+            new UCS2Charset80(), new UCS2Charset81(), new UCS2Charset82(), new TelecomCharset()
     };
 
     private Set<Charset> set = new HashSet<>();
@@ -0,0 +1,315 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import threegpp.charset.gsm.GSM7BitPackedCharset;
+
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+
+import static threegpp.charset.Util.keepUnsigned;
+
+/**
+ * Data Coding Scheme of SMS (TP-DCS, ETSI TS 123 038, 4) and of Cell Broadcast (CBS-DCS, ETSI TS 123 038, 5).
+ * <p>
+ * All 256 values of both schemes are parsed once on class initialization, so {@link #forSms(int)} and
+ * {@link #forCbs(int)} are a single array load returning a shared immutable instance. Reserved coding groups and
+ * the reserved alphabet are taken as GSM 7 bit default alphabet, as the standard tells a receiving entity to do.
+ * <p>
+ * {@link #decoder()} hands back a decoder of the calling thread for the alphabet: packed GSM 7 bit default alphabet
+ * or UCS2 as big endian UTF-16 without any tag (SMS user data does not carry the tags of SIM alpha identifiers).
+ */
+public final class DataCodingScheme {
+
+    /**
+     * Coding groups of both schemes.
+     */
+    public enum Group {
+        GENERAL,
+        AUTOMATIC_DELETION,
+        MESSAGE_WAITING_DISCARD,
+        MESSAGE_WAITING_STORE,
+        DATA_CODING_MESSAGE_CLASS,
+        LANGUAGE,
+        LANGUAGE_INDICATION,
+        USER_DATA_HEADER,
+        WAP,
+        RESERVED
+    }
+
+    /**
+     * Character sets of user data.
+     */
+    public enum Alphabet {
+        GSM_7BIT,
+        DATA_8BIT,
+        UCS2
+    }
+
+    public static final int NO_MESSAGE_CLASS = -1;
+    public static final int NO_INDICATION = -1;
+    public static final int NO_LANGUAGE = -1;
+
+    /**
+     * Two GSM 7 bit chars of ISO 639 language code and two zero bits in front of UCS2 text (ETSI TS 123 038, 5).
+     */
+    public static final int UCS2_LANGUAGE_INDICATION_OCTETS = 2;
+
+    public static final int INDICATION_VOICEMAIL = 0;
+    public static final int INDICATION_FAX = 1;
+    public static final int INDICATION_EMAIL = 2;
+    public static final int INDICATION_OTHER = 3;
+
+    private static final int SCHEMES = 0x100;
+    private static final int ALPHABET_SHIFT = 2;
+    private static final int TWO_BIT_MASK = 0x03;
+    private static final int CLASS_MEANING_BIT = 0x10;
+    private static final int COMPRESSED_BIT = 0x20;
+    private static final int INDICATION_ACTIVE_BIT = 0x08;
+    private static final int DATA_8BIT_BIT = 0x04;
+    private static final int CBS_GSM_WITH_LANGUAGE = 0x10;
+    private static final int CBS_UCS2_WITH_LANGUAGE = 0x11;
+    private static final int CBS_MAX_SECOND_LANGUAGE = 0x24;
+
+    private static final Alphabet[] ALPHABETS = {Alphabet.GSM_7BIT, Alphabet.DATA_8BIT, Alphabet.UCS2,
+            Alphabet.GSM_7BIT};
+
+    private static final Charset GSM_7BIT_CHARSET = new GSM7BitPackedCharset();
+    private static final Charset UCS2_CHARSET = Charset.forName("UTF-16BE");
+
+    private static final DataCodingScheme[] SMS = createSmsSchemes();
+    private static final DataCodingScheme[] CBS = createCbsSchemes();
+
+    private final int value;
+    private final Group group;
+    private final Alphabet alphabet;
+    private final boolean compressed;
+    private final int messageClass;
+    private final int indicationType;
+    private final boolean indicationActive;
+    private final int language;
+
+    private DataCodingScheme(int value, Group group, Alphabet alphabet, boolean compressed, int messageClass,
+                             int indicationType, boolean indicationActive, int language) {
+        this.value = value;
+        this.group = group;
+        this.alphabet = alphabet;
+        this.compressed = compressed;
+        this.messageClass = messageClass;
+        this.indicationType = indicationType;
+        this.indicationActive = indicationActive;
+        this.language = language;
+    }
+
+    /**
+     * @param dcs TP-Data-Coding-Scheme octet, only the low 8 bits are used
+     * @return parsed scheme
+     */
+    public static DataCodingScheme forSms(int dcs) {
+        return SMS[keepUnsigned(dcs)];
+    }
+
+    /**
+     * @param dcs CBS Data Coding Scheme octet, only the low 8 bits are used
+     * @return parsed scheme
+     */
+    public static DataCodingScheme forCbs(int dcs) {
+        return CBS[keepUnsigned(dcs)];
+    }
+
+    /**
+     * @return the octet this scheme was parsed from
+     */
+    public int value() {
+        return value;
+    }
+
+    public Group group() {
+        return group;
+    }
+
+    public Alphabet alphabet() {
+        return alphabet;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * @return message class 0..3 or {@link #NO_MESSAGE_CLASS}
+     */
+    public int messageClass() {
+        return messageClass;
+    }
+
+    /**
+     * @return one of {@code INDICATION_*} constants for message waiting groups, {@link #NO_INDICATION} otherwise
+     */
+    public int indicationType() {
+        return indicationType;
+    }
+
+    /**
+     * @return true if message waiting indication is set active, false if it is set inactive or absent
+     */
+    public boolean isIndicationActive() {
+        return indicationActive;
+    }
+
+    /**
+     * Language of a Cell Broadcast message given by the coding group, e.g. {@code 0x01} for English or {@code 0x23}
+     * for Russian (ETSI TS 123 038, 5).
+     * @return the scheme value of the language or {@link #NO_LANGUAGE}
+     */
+    public int language() {
+        return language;
+    }
+
+    /**
+     * Decoder for user data of this scheme, cached per thread and shared with {@link TelecomCodecs}. It is reset,
+     * replaces malformed input and unmappable characters, and a GSM 7 bit decoder has no fill bits, septet count or
+     * &lt;CR&gt; padding set. Settings made by the caller are undone on the next call on the same thread.
+     * <p>
+     * CBS messages of {@link Group#LANGUAGE_INDICATION} start with the language: with GSM 7 bit alphabet these are
+     * the first three chars of the decoded text (two letters of ISO 639 and &lt;CR&gt;), with UCS2 these are
+     * {@link #UCS2_LANGUAGE_INDICATION_OCTETS} octets of packed GSM 7 bit chars, which the caller skips before
+     * decoding and may decode with a GSM 7 bit decoder.
+     * @return decoder which may be used until the next call on the same thread, null for 8 bit data and compressed
+     * user data, which are not text of a known charset
+     */
+    public CharsetDecoder decoder() {
+        if (compressed || alphabet == Alphabet.DATA_8BIT) {
+            return null;
+        }
+        return TelecomCodecs.decoder(alphabet == Alphabet.UCS2 ? UCS2_CHARSET : GSM_7BIT_CHARSET);
+    }
+
+    @Override
+    public String toString() {
+        return "DataCodingScheme{value=0x" + Integer.toHexString(value) + ", group=" + group
+                + ", alphabet=" + alphabet + (compressed ? ", compressed" : "")
+                + ", messageClass=" + messageClass + '}';
+    }
+
+    private static DataCodingScheme[] createSmsSchemes() {
+        DataCodingScheme[] schemes = new DataCodingScheme[SCHEMES];
+        for (int dcs = 0; dcs < SCHEMES; dcs++) {
+            schemes[dcs] = parseSms(dcs);
+        }
+        return schemes;
+    }
+
+    private static DataCodingScheme[] createCbsSchemes() {
+        DataCodingScheme[] schemes = new DataCodingScheme[SCHEMES];
+        for (int dcs = 0; dcs < SCHEMES; dcs++) {
+            schemes[dcs] = parseCbs(dcs);
+        }
+        return schemes;
+    }
+
+    private static DataCodingScheme parseSms(int dcs) {
+        switch (dcs >>> 4) {
+            case 0x0: case 0x1: case 0x2: case 0x3:
+                return general(dcs, Group.GENERAL);
+            case 0x4: case 0x5: case 0x6: case 0x7:
+                return general(dcs, Group.AUTOMATIC_DELETION);
+            case 0xC:
+                return messageWaiting(dcs, Group.MESSAGE_WAITING_DISCARD, Alphabet.GSM_7BIT);
+            case 0xD:
+                return messageWaiting(dcs, Group.MESSAGE_WAITING_STORE, Alphabet.GSM_7BIT);
+            case 0xE:
+                return messageWaiting(dcs, Group.MESSAGE_WAITING_STORE, Alphabet.UCS2);
+            case 0xF:
+                return dataCodingMessageClass(dcs, dcs & TWO_BIT_MASK);
+            default:
+                return reserved(dcs);
+        }
+    }
+
+    private static DataCodingScheme parseCbs(int dcs) {
+        switch (dcs >>> 4) {
+            case 0x0:
+                return language(dcs);
+            case 0x1:
+                if (dcs == CBS_GSM_WITH_LANGUAGE || dcs == CBS_UCS2_WITH_LANGUAGE) {
+                    return new DataCodingScheme(dcs, Group.LANGUAGE_INDICATION,
+                            dcs == CBS_GSM_WITH_LANGUAGE ? Alphabet.GSM_7BIT : Alphabet.UCS2,
+                            false, NO_MESSAGE_CLASS, NO_INDICATION, false, NO_LANGUAGE);
+                }
+                return reserved(dcs);
+            case 0x2:
+                return dcs <= CBS_MAX_SECOND_LANGUAGE ? language(dcs) : reserved(dcs);
+            case 0x4: case 0x5: case 0x6: case 0x7:
+                return general(dcs, Group.GENERAL);
+            case 0x9:
+                return new DataCodingScheme(dcs, Group.USER_DATA_HEADER, alphabetOf(dcs), false,
+                        dcs & TWO_BIT_MASK, NO_INDICATION, false, NO_LANGUAGE);
+            case 0xE:
+                return new DataCodingScheme(dcs, Group.WAP, Alphabet.DATA_8BIT, false, NO_MESSAGE_CLASS,
+                        NO_INDICATION, false, NO_LANGUAGE);
+            case 0xF:
+                int messageClass = dcs & TWO_BIT_MASK;
+                return dataCodingMessageClass(dcs, messageClass == 0 ? NO_MESSAGE_CLASS : messageClass);
+            default:
+                return reserved(dcs);
+        }
+    }
+
+    /**
+     * Bit 5 is compression, bit 4 tells whether bits 1..0 have message class meaning, bits 3..2 are the alphabet.
+     */
+    private static DataCodingScheme general(int dcs, Group group) {
+        int messageClass = (dcs & CLASS_MEANING_BIT) != 0 ? dcs & TWO_BIT_MASK : NO_MESSAGE_CLASS;
+        return new DataCodingScheme(dcs, group, alphabetOf(dcs), (dcs & COMPRESSED_BIT) != 0, messageClass,
+                NO_INDICATION, false, NO_LANGUAGE);
+    }
+
+    /**
+     * Bit 3 is indication sense, bits 1..0 are indication type.
+     */
+    private static DataCodingScheme messageWaiting(int dcs, Group group, Alphabet alphabet) {
+        return new DataCodingScheme(dcs, group, alphabet, false, NO_MESSAGE_CLASS, dcs & TWO_BIT_MASK,
+                (dcs & INDICATION_ACTIVE_BIT) != 0, NO_LANGUAGE);
+    }
+
+    /**
+     * Bit 2 selects 8 bit data over GSM 7 bit default alphabet.
+     */
+    private static DataCodingScheme dataCodingMessageClass(int dcs, int messageClass) {
+        Alphabet alphabet = (dcs & DATA_8BIT_BIT) != 0 ? Alphabet.DATA_8BIT : Alphabet.GSM_7BIT;
+        return new DataCodingScheme(dcs, Group.DATA_CODING_MESSAGE_CLASS, alphabet, false, messageClass,
+                NO_INDICATION, false, NO_LANGUAGE);
+    }
+
+    private static DataCodingScheme language(int dcs) {
+        return new DataCodingScheme(dcs, Group.LANGUAGE, Alphabet.GSM_7BIT, false, NO_MESSAGE_CLASS,
+                NO_INDICATION, false, dcs);
+    }
+
+    private static DataCodingScheme reserved(int dcs) {
+        return new DataCodingScheme(dcs, Group.RESERVED, Alphabet.GSM_7BIT, false, NO_MESSAGE_CLASS,
+                NO_INDICATION, false, NO_LANGUAGE);
+    }
+
+    private static Alphabet alphabetOf(int dcs) {
+        return ALPHABETS[dcs >>> ALPHABET_SHIFT & TWO_BIT_MASK];
+    }
+}
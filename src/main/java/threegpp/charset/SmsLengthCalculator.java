@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import threegpp.charset.gsm.GSMCharset;
+
+/**
+ * Measures a short message without encoding it: encoding, length, number of segments and space left in the last
+ * segment, the same as {@link SmsSegmenter} would produce.
+ * <p>
+ * The text is scanned once. Every char is looked up in the precomputed reverse table of the {@link GSMCharset} while
+ * segments are counted for GSM 7 bit alphabet and for UCS2 side by side, so a char out of GSM alphabet at the end of
+ * the text does not need a second pass. Nothing is allocated, instances keep the result of the last
+ * {@link #calculate(CharSequence)} call and are not thread safe.
+ * <p>
+ * Unlike {@link SmsSegmenter} the calculator does not limit the number of segments.
+ */
+public final class SmsLengthCalculator {
+    private static final int BYTES_PER_UCS2_CHAR = 2;
+
+    private final GSMCharset gsmCharset;
+    private final int gsmSingleCapacity;
+    private final int gsmCapacity;
+    private final int ucs2SingleCapacity;
+    private final int ucs2Capacity;
+
+    private boolean ucs2;
+    private int length;
+    private int segments;
+    private int remaining;
+
+    public SmsLengthCalculator() {
+        this(new GSMCharset());
+    }
+
+    /**
+     * @param gsmCharset GSM 7 bit charset, possibly with national language tables
+     */
+    public SmsLengthCalculator(GSMCharset gsmCharset) {
+        this.gsmCharset = gsmCharset;
+        gsmSingleCapacity = SmsSegmenter.capacity(false, SmsSegmenter.headerLength(gsmCharset, false, false));
+        gsmCapacity = SmsSegmenter.capacity(false, SmsSegmenter.headerLength(gsmCharset, false, true));
+        ucs2SingleCapacity = SmsSegmenter.capacity(true, SmsSegmenter.headerLength(gsmCharset, true, false));
+        ucs2Capacity = SmsSegmenter.capacity(true, SmsSegmenter.headerLength(gsmCharset, true, true));
+    }
+
+    /**
+     * Measure text.
+     * @param text text of the message
+     * @return number of segments, at least 1
+     */
+    public int calculate(CharSequence text) {
+        final int textLength = text.length();
+
+        boolean gsm = true;
+        int septets = 0;
+        int gsmSegments = 1;
+        int gsmUsed = 0;
+
+        int units = 0;
+        int ucs2Segments = 1;
+        int ucs2Used = 0;
+
+        for (int i = 0; i < textLength; i++) {
+            char ch = text.charAt(i);
+            if (gsm) {
+                int cost = gsmCharset.septetLength(ch);
+                if (cost == 0) {
+                    gsm = false;
+                } else {
+                    septets += cost;
+                    if (gsmUsed + cost > gsmCapacity) {
+                        gsmSegments++;
+                        gsmUsed = cost;
+                    } else {
+                        gsmUsed += cost;
+                    }
+                }
+            }
+            int cost = 1;
+            if (Character.isHighSurrogate(ch) && i + 1 < textLength && Character.isLowSurrogate(text.charAt(i + 1))) {
+                cost = 2;
+                i++;
+            }
+            units += cost;
+            if (ucs2Used + cost > ucs2Capacity) {
+                ucs2Segments++;
+                ucs2Used = cost;
+            } else {
+                ucs2Used += cost;
+            }
+        }
+
+        ucs2 = !gsm;
+        if (gsm) {
+            length = septets;
+            setSegments(septets, gsmSingleCapacity, gsmSegments, gsmCapacity - gsmUsed);
+        } else {
+            length = units * BYTES_PER_UCS2_CHAR;
+            setSegments(units, ucs2SingleCapacity, ucs2Segments, ucs2Capacity - ucs2Used);
+        }
+        return segments;
+    }
+
+    /**
+     * @return true if the text is encoded with UCS2, false if with GSM 7 bit alphabet
+     */
+    public boolean isUcs2() {
+        return ucs2;
+    }
+
+    /**
+     * @return length of encoded text without headers: septets for GSM 7 bit alphabet, octets for UCS2
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return number of segments
+     */
+    public int segments() {
+        return segments;
+    }
+
+    /**
+     * @return space left in the last segment: septets for GSM 7 bit alphabet, chars (UTF-16 code units) for UCS2
+     */
+    public int remaining() {
+        return remaining;
+    }
+
+    private void setSegments(int units, int singleCapacity, int concatenatedSegments, int concatenatedRemaining) {
+        if (units <= singleCapacity) {
+            segments = 1;
+            remaining = singleCapacity - units;
+        } else {
+            segments = concatenatedSegments;
+            remaining = concatenatedRemaining;
+        }
+    }
+}
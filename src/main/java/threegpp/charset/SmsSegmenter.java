@@ -0,0 +1,311 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import threegpp.charset.gsm.GSMCharset;
+import threegpp.charset.gsm.NationalLanguage;
+import threegpp.charset.gsm.SeptetPacker;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+
+import static threegpp.charset.UserDataHeaderIterator.IEI_CONCATENATED_8BIT;
+import static threegpp.charset.UserDataHeaderIterator.IEI_LOCKING_SHIFT;
+import static threegpp.charset.UserDataHeaderIterator.IEI_SINGLE_SHIFT;
+import static threegpp.charset.UserDataHeaderIterator.IE_HEADER_LENGTH;
+import static threegpp.charset.Util.SINGLE_BYTE_BIT_MASK;
+
+/**
+ * Splits text into segments of a concatenated short message (ETSI TS 123 040, 9.2.3.24.1) and writes TP-User-Data
+ * of each segment, User Data Header included, into caller provided arrays.
+ * <p>
+ * Text is encoded with GSM 7 bit alphabet of the given {@link GSMCharset} when possible and with UCS2 (UTF-16BE,
+ * without a tag) otherwise. A single segment takes 160 septets or 70 chars. Segments of a longer text carry an 8 bit
+ * reference concatenation header and take 153 septets or 67 chars. National language tables of the charset add
+ * locking and single shift information elements to every header and reduce capacity accordingly. An escape septet
+ * is never separated from the code which follows it and a surrogate pair is never split.
+ * <p>
+ * GSM septets are packed with fill bits up to the septet boundary after the header. {@link #userDataLength(int)}
+ * gives TP-User-Data-Length: septets (header and fill bits included) for GSM and octets for UCS2.
+ * <p>
+ * Instances reuse their scratch arrays, so splitting does not allocate once they have grown to the longest text.
+ * Instances keep the result of the last {@link #split(CharSequence)} call and are not thread safe.
+ */
+public final class SmsSegmenter {
+    public static final int MAX_SEGMENTS = 255;
+    static final int MAX_USER_DATA_OCTETS = 140;
+    static final int MAX_USER_DATA_SEPTETS = 160;
+
+    private static final int CONCATENATED_IE_LENGTH = 5;  // IEI, length, reference, number of segments, sequence
+    private static final int NATIONAL_IE_LENGTH = 3;      // IEI, length, National Language Identifier
+
+    private static final int SEPTET_BITS = 7;
+    private static final int BITS_PER_BYTE = 8;
+    private static final int BYTES_PER_UCS2_CHAR = 2;
+    private static final int MAX_GSM_CHAR_LENGTH = 2;
+
+    private final GSMCharset gsmCharset;
+    private final CharsetEncoder gsmEncoder;
+    private final int[] boundaries = new int[MAX_SEGMENTS + 1];
+
+    private char[] chars = new char[0];
+    private CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private byte[] septets = new byte[0];
+    private ByteBuffer septetBuffer = ByteBuffer.wrap(septets);
+
+    private boolean ucs2;
+    private boolean concatenated;
+    private int segments;
+    private int headerLength;
+
+    public SmsSegmenter() {
+        this(new GSMCharset());
+    }
+
+    /**
+     * @param gsmCharset GSM 7 bit charset, possibly with national language tables
+     */
+    public SmsSegmenter(GSMCharset gsmCharset) {
+        this.gsmCharset = gsmCharset;
+        this.gsmEncoder = gsmCharset.newEncoder();
+    }
+
+    /**
+     * Encode text and split it into segments.
+     * @param text text of the message
+     * @return number of segments, at least 1
+     * @throws IllegalArgumentException if the text needs more than {@link #MAX_SEGMENTS} segments
+     */
+    public int split(CharSequence text) {
+        final int length = text.length();
+        if (length > MAX_SEGMENTS * MAX_USER_DATA_SEPTETS) {
+            throw new IllegalArgumentException("Text is too long for " + MAX_SEGMENTS + " segments: " + length);
+        }
+        copyChars(text, length);
+        ucs2 = !encodeSeptets(length);
+        final int units = ucs2 ? length : septetBuffer.position();
+
+        concatenated = false;
+        headerLength = headerLength(gsmCharset, ucs2, concatenated);
+        segments = 1;
+        boundaries[0] = 0;
+        boundaries[1] = units;
+        if (units <= capacity(ucs2, headerLength)) {
+            return segments;
+        }
+
+        concatenated = true;
+        headerLength = headerLength(gsmCharset, ucs2, concatenated);
+        final int capacity = capacity(ucs2, headerLength);
+        segments = 0;
+        int start = 0;
+        while (start < units) {
+            if (segments == MAX_SEGMENTS) {
+                throw new IllegalArgumentException("Text needs more than " + MAX_SEGMENTS + " segments");
+            }
+            int end = Math.min(start + capacity, units);
+            if (end < units && isSplitInsideCharacter(end)) {
+                end--;
+            }
+            boundaries[segments++] = start;
+            start = end;
+        }
+        boundaries[segments] = units;
+        return segments;
+    }
+
+    /**
+     * @return number of segments found by the last {@link #split(CharSequence)}
+     */
+    public int segments() {
+        return segments;
+    }
+
+    /**
+     * @return true if the text is encoded with UCS2, false if with GSM 7 bit alphabet
+     */
+    public boolean isUcs2() {
+        return ucs2;
+    }
+
+    /**
+     * @return true if segments start with User Data Header (TP-User-Data-Header-Indicator has to be set)
+     */
+    public boolean hasUserDataHeader() {
+        return headerLength > 0;
+    }
+
+    /**
+     * TP-User-Data-Length of a segment.
+     * @param segment zero based index of the segment
+     * @return number of septets for GSM 7 bit alphabet or octets for UCS2, User Data Header included
+     */
+    public int userDataLength(int segment) {
+        checkSegment(segment);
+        int units = boundaries[segment + 1] - boundaries[segment];
+        if (ucs2) {
+            return headerLength + units * BYTES_PER_UCS2_CHAR;
+        }
+        return headerSeptets(headerLength) + units;
+    }
+
+    /**
+     * Write TP-User-Data of a segment: User Data Header (if any) followed by packed septets or UCS2 chars.
+     * @param segment zero based index of the segment
+     * @param reference concatenated short message reference number, the same for all segments of a message
+     * @param dst destination array, at least {@value #MAX_USER_DATA_OCTETS} octets have to be available
+     * @param off offset of the first octet in {@code dst}
+     * @return number of octets written
+     */
+    public int write(int segment, int reference, byte[] dst, int off) {
+        checkSegment(segment);
+        int pos = off;
+        if (headerLength > 0) {
+            pos = writeHeader(segment, reference, dst, pos);
+        }
+        final int start = boundaries[segment];
+        final int end = boundaries[segment + 1];
+        if (ucs2) {
+            for (int i = start; i < end; i++) {
+                char ch = chars[i];
+                dst[pos++] = (byte) (ch >> BITS_PER_BYTE);
+                dst[pos++] = (byte) ch;
+            }
+        } else {
+            final int fillBits = fillBits(headerLength);
+            pos += SeptetPacker.pack(septets, start, end - start, dst, pos, fillBits);
+            if (start == end && fillBits > 0) {
+                // TP-User-Data-Length counts the septet of fill bits even without text
+                dst[pos++] = 0;
+            }
+        }
+        return pos - off;
+    }
+
+    private void copyChars(CharSequence text, int length) {
+        if (chars.length < length) {
+            chars = new char[length];
+            charBuffer = CharBuffer.wrap(chars);
+        }
+        for (int i = 0; i < length; i++) {
+            chars[i] = text.charAt(i);
+        }
+    }
+
+    /**
+     * @return false if the text has chars out of GSM 7 bit alphabet
+     */
+    private boolean encodeSeptets(int length) {
+        if (septets.length < length * MAX_GSM_CHAR_LENGTH) {
+            septets = new byte[length * MAX_GSM_CHAR_LENGTH];
+            septetBuffer = ByteBuffer.wrap(septets);
+        }
+        charBuffer.position(0);
+        charBuffer.limit(length);
+        septetBuffer.clear();
+
+        gsmEncoder.reset();
+        CoderResult result = gsmEncoder.encode(charBuffer, septetBuffer, true);
+        if (result.isUnderflow()) {
+            result = gsmEncoder.flush(septetBuffer);
+        }
+        return result.isUnderflow();
+    }
+
+    private boolean isSplitInsideCharacter(int end) {
+        if (ucs2) {
+            return Character.isHighSurrogate(chars[end - 1]) && Character.isLowSurrogate(chars[end]);
+        }
+        return septets[end - 1] == GSMCharset.GSM_EXTENDED_ESCAPE;
+    }
+
+    /**
+     * @return length of User Data Header in octets (length octet included), 0 when no header is needed
+     */
+    static int headerLength(GSMCharset gsmCharset, boolean ucs2, boolean concatenated) {
+        int length = concatenated ? CONCATENATED_IE_LENGTH : 0;
+        if (!ucs2) {
+            if (gsmCharset.lockingShift() != NationalLanguage.DEFAULT) {
+                length += NATIONAL_IE_LENGTH;
+            }
+            if (gsmCharset.singleShift() != NationalLanguage.DEFAULT) {
+                length += NATIONAL_IE_LENGTH;
+            }
+        }
+        return length == 0 ? 0 : length + 1;
+    }
+
+    /**
+     * @return number of septets (GSM) or chars (UCS2) which fit a segment after the header
+     */
+    static int capacity(boolean ucs2, int header) {
+        if (ucs2) {
+            return (MAX_USER_DATA_OCTETS - header) / BYTES_PER_UCS2_CHAR;
+        }
+        return MAX_USER_DATA_SEPTETS - headerSeptets(header);
+    }
+
+    /**
+     * @return number of septets a User Data Header of given length takes, fill bits included
+     */
+    static int headerSeptets(int header) {
+        return (header * BITS_PER_BYTE + SEPTET_BITS - 1) / SEPTET_BITS;
+    }
+
+    /**
+     * @return number of fill bits between a User Data Header of given length and the first septet of text
+     */
+    static int fillBits(int header) {
+        return headerSeptets(header) * SEPTET_BITS - header * BITS_PER_BYTE;
+    }
+
+    private int writeHeader(int segment, int reference, byte[] dst, int pos) {
+        dst[pos++] = (byte) (headerLength - 1);
+        if (concatenated) {
+            dst[pos++] = IEI_CONCATENATED_8BIT;
+            dst[pos++] = CONCATENATED_IE_LENGTH - IE_HEADER_LENGTH;
+            dst[pos++] = (byte) (reference & SINGLE_BYTE_BIT_MASK);
+            dst[pos++] = (byte) segments;
+            dst[pos++] = (byte) (segment + 1);
+        }
+        if (!ucs2) {
+            pos = writeNationalLanguage(IEI_LOCKING_SHIFT, gsmCharset.lockingShift(), dst, pos);
+            pos = writeNationalLanguage(IEI_SINGLE_SHIFT, gsmCharset.singleShift(), dst, pos);
+        }
+        return pos;
+    }
+
+    private static int writeNationalLanguage(int iei, NationalLanguage language, byte[] dst, int pos) {
+        if (language != NationalLanguage.DEFAULT) {
+            dst[pos++] = (byte) iei;
+            dst[pos++] = NATIONAL_IE_LENGTH - IE_HEADER_LENGTH;
+            dst[pos++] = (byte) language.identifier();
+        }
+        return pos;
+    }
+
+    private void checkSegment(int segment) {
+        if (segment < 0 || segment >= segments) {
+            throw new IndexOutOfBoundsException("Segment " + segment + " of " + segments);
+        }
+    }
+}
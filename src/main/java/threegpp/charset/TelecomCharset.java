@@ -21,6 +21,7 @@ package threegpp.charset;
 import threegpp.charset.gsm.GSMCharset;
 import threegpp.charset.ucs2.UCS2Charset80;
 import threegpp.charset.ucs2.UCS2Charset81;
+import threegpp.charset.ucs2.UCS2Charset82;
 
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
@@ -32,6 +33,7 @@ import java.nio.charset.CharsetEncoder;
  *     <li>GSM 7 Bit
  *     <li>UCS2 with tag 0x80
  *     <li>UCS2 with tag 0x81
+ *     <li>UCS2 with tag 0x82
  * </ul>
  * <p>
  * This {@link Charset} supports decoding only.
@@ -50,7 +52,7 @@ public class TelecomCharset extends Charset {
     @Override
     public boolean contains(Charset cs) {
         return cs instanceof GSMCharset || cs instanceof UCS2Charset80 ||
-                cs instanceof UCS2Charset81 || cs instanceof TelecomCharset;
+                cs instanceof UCS2Charset81 || cs instanceof UCS2Charset82 || cs instanceof TelecomCharset;
     }
 
     @Override
@@ -22,6 +22,7 @@ package threegpp.charset;
 import threegpp.charset.gsm.GSMCharset;
 import threegpp.charset.ucs2.UCS2Charset80;
 import threegpp.charset.ucs2.UCS2Charset81;
+import threegpp.charset.ucs2.UCS2Charset82;
 
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
@@ -32,10 +33,28 @@ import java.nio.charset.CoderResult;
 import static threegpp.charset.Util.MOST_SIGNIFICANT_BIT;
 import static threegpp.charset.Util.keepUnsigned;
 
+/**
+ * Auto-detecting decoder. Charset is detected by the first byte of input. Detected charsets are shared singletons
+ * and every sub-decoder is created once per {@link TelecomCharsetDecoder} and then reset and reused, so decoding of
+ * one record after another with a single decoder instance does not allocate.
+ */
 public class TelecomCharsetDecoder extends CharsetDecoder {
     private static final float AVERAGE_CHARS_PER_BYTE = 0.5f;
     private static final float MAX_CHARS_PER_BYTE = 1.0f;
 
+    private static final ByteBuffer EMPTY_INPUT = ByteBuffer.allocate(0);
+
+    private static final int GSM = 0;
+    private static final int UCS2_80 = 1;
+    private static final int UCS2_81 = 2;
+    private static final int UCS2_82 = 3;
+    private static final int UNKNOWN = -1;
+
+    private static final Charset[] DETECTABLE_CHARSETS = {
+            new GSMCharset(), new UCS2Charset80(), new UCS2Charset81(), new UCS2Charset82()
+    };
+
+    private final CharsetDecoder[] decoders = new CharsetDecoder[DETECTABLE_CHARSETS.length];
     private Charset currentCharset;
     private CharsetDecoder currentDecoder;
 
@@ -45,7 +64,10 @@ public class TelecomCharsetDecoder extends CharsetDecoder {
 
     @Override
     protected CoderResult implFlush(CharBuffer out) {
-        currentDecoder.decode(ByteBuffer.allocate(0), out, true);
+        if (null == currentDecoder) {
+            return CoderResult.UNDERFLOW;
+        }
+        currentDecoder.decode(EMPTY_INPUT, out, true);
         return currentDecoder.flush(out);
     }
 
@@ -88,27 +110,39 @@ public class TelecomCharsetDecoder extends CharsetDecoder {
         return currentCharset;
     }
 
-    private static Charset detectCharset(int firstByte) {
+    private static int detectCharset(int firstByte) {
         int unsignedByte = keepUnsigned(firstByte);
         if ((unsignedByte & MOST_SIGNIFICANT_BIT) == 0) {
-            return new GSMCharset();
+            return GSM;
         } else if (unsignedByte == UCS2Charset80.CHARSET_TAG) {
-            return new UCS2Charset80();
+            return UCS2_80;
         } else if (unsignedByte == UCS2Charset81.CHARSET_TAG) {
-            return new UCS2Charset81();
+            return UCS2_81;
+        } else if (unsignedByte == UCS2Charset82.CHARSET_TAG) {
+            return UCS2_82;
         }
-        return null;
+        return UNKNOWN;
     }
 
     private CoderResult createDecoder(ByteBuffer in) {
-        currentCharset = detectCharset(in.get());
-        if (null == currentCharset) {
-            return CoderResult.malformedForLength(in.remaining() + 1);
+        int detected = detectCharset(in.get(in.position()));
+        if (UNKNOWN == detected) {
+            return CoderResult.malformedForLength(in.remaining());
         }
-        currentDecoder = currentCharset.newDecoder();
-
-        in.position(in.position() - 1);
+        currentCharset = DETECTABLE_CHARSETS[detected];
+        currentDecoder = cachedDecoder(detected);
 
         return CoderResult.UNDERFLOW;
     }
+
+    private CharsetDecoder cachedDecoder(int index) {
+        CharsetDecoder decoder = decoders[index];
+        if (null == decoder) {
+            decoder = DETECTABLE_CHARSETS[index].newDecoder();
+            decoders[index] = decoder;
+        } else {
+            decoder.reset();
+        }
+        return decoder;
+    }
 }
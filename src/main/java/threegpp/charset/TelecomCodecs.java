@@ -0,0 +1,312 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import threegpp.charset.gsm.GSM7BitPackedDecoder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * Conversion between {@link String} and bytes with per thread cached coders.
+ * <p>
+ * {@link Charset#encode(CharBuffer)}, {@link Charset#decode(ByteBuffer)}, {@link String#getBytes(Charset)} and
+ * {@link String#String(byte[], Charset)} create a new coder on every call, and coders of this library may hold
+ * nested coders too. Methods of this class reuse coders (reset before every use) and scratch buffers of the
+ * calling thread instead. Malformed input and unmappable characters are replaced, the same way as
+ * {@link Charset#encode(CharBuffer)} and {@link Charset#decode(ByteBuffer)} do.
+ * <p>
+ * Per thread footprint is bounded: at most {@value #MAX_CACHED_CHARSETS} charsets have cached coders and scratch
+ * buffers are kept only up to {@value #MAX_SCRATCH_LENGTH} elements, larger conversions use one-off buffers.
+ * <p>
+ * The cache pays off on long lived platform threads, e.g. of a pool, where it is built once and reused by every
+ * call. A {@link ThreadLocal} of a virtual thread belongs to that virtual thread, not to its carrier, and virtual
+ * threads are usually created per task: a cache would be built by each of them and dropped unused. So on a virtual
+ * thread (Java 21+) nothing is cached and every call creates its coder and buffers, which costs about the same as
+ * {@link Charset#encode(CharBuffer)} and {@link Charset#decode(ByteBuffer)}.
+ */
+public final class TelecomCodecs {
+    static final int MAX_CACHED_CHARSETS = 4;
+    static final int MAX_SCRATCH_LENGTH = 4096;
+
+    private static final Method IS_VIRTUAL = isVirtualMethod();
+    private static final Object[] NO_ARGUMENTS = {};
+
+    private static final ThreadLocal<Cache> CACHE = new ThreadLocal<Cache>() {
+        @Override
+        protected Cache initialValue() {
+            return new Cache();
+        }
+    };
+
+    private TelecomCodecs() {
+    }
+
+    /**
+     * Encode text with given charset.
+     * @param text text to encode
+     * @param cs charset to encode with
+     * @return encoded bytes
+     * @throws UnsupportedOperationException if charset does not support encoding
+     * @throws IllegalArgumentException if text can't be encoded and the encoder does not support replacement
+     */
+    public static byte[] encode(String text, Charset cs) {
+        Cache cache = cache();
+        CharsetEncoder encoder = cache.encoder(cs);
+
+        int length = text.length();
+        CharBuffer in = cache.charScratch(length);
+        text.getChars(0, length, in.array(), 0);
+        in.limit(length);
+
+        ByteBuffer out = cache.byteScratch(maxLength(length, encoder.maxBytesPerChar()));
+
+        CoderResult result = encoder.encode(in, out, true);
+        while (result.isOverflow()) {
+            out = grow(out);
+            result = encoder.encode(in, out, true);
+        }
+        if (result.isUnderflow()) {
+            result = encoder.flush(out);
+            while (result.isOverflow()) {
+                out = grow(out);
+                result = encoder.flush(out);
+            }
+        }
+        checkUnderflow(result);
+
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    /**
+     * Decode bytes with given charset.
+     * @param bytes array of encoded bytes
+     * @param off offset of the first byte to decode
+     * @param len number of bytes to decode
+     * @param cs charset to decode with
+     * @return decoded text
+     * @throws IllegalArgumentException if input can't be decoded and the decoder does not support replacement
+     */
+    public static String decode(byte[] bytes, int off, int len, Charset cs) {
+        Cache cache = cache();
+        CharsetDecoder decoder = cache.decoder(cs);
+
+        ByteBuffer in = ByteBuffer.wrap(bytes, off, len);
+        CharBuffer out = cache.charScratch(maxLength(len, decoder.maxCharsPerByte()));
+
+        CoderResult result = decoder.decode(in, out, true);
+        while (result.isOverflow()) {
+            out = grow(out);
+            result = decoder.decode(in, out, true);
+        }
+        if (result.isUnderflow()) {
+            result = decoder.flush(out);
+            while (result.isOverflow()) {
+                out = grow(out);
+                result = decoder.flush(out);
+            }
+        }
+        checkUnderflow(result);
+
+        return new String(out.array(), 0, out.position());
+    }
+
+    /**
+     * Decode bytes with given charset.
+     * @param bytes encoded bytes
+     * @param cs charset to decode with
+     * @return decoded text
+     * @throws IllegalArgumentException if input can't be decoded and the decoder does not support replacement
+     */
+    public static String decode(byte[] bytes, Charset cs) {
+        return decode(bytes, 0, bytes.length, cs);
+    }
+
+    /**
+     * Cached decoder of the calling thread, reset and replacing malformed input and unmappable characters.
+     * A GSM 7 bit packed decoder has default fill bits, septet count and padding.
+     * @param cs charset of the decoder
+     * @return decoder which may be used until the next call on the same thread
+     */
+    static CharsetDecoder decoder(Charset cs) {
+        return cache().decoder(cs);
+    }
+
+    /**
+     * @return cache of the calling platform thread or a one-off cache for a virtual thread
+     */
+    private static Cache cache() {
+        return isVirtual(Thread.currentThread()) ? new Cache() : CACHE.get();
+    }
+
+    /**
+     * {@code Thread.isVirtual()} is looked up reflectively, it appeared in Java 21.
+     */
+    static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_VIRTUAL.invoke(thread, NO_ARGUMENTS);
+        } catch (IllegalAccessException e) {
+            return false;
+        } catch (InvocationTargetException e) {
+            return false;
+        }
+    }
+
+    private static Method isVirtualMethod() {
+        try {
+            return Thread.class.getMethod("isVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Coders which insist on reporting errors regardless of configured actions end up here.
+     */
+    private static void checkUnderflow(CoderResult result) {
+        if (!result.isUnderflow()) {
+            try {
+                result.throwException();
+            } catch (CharacterCodingException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+    }
+
+    private static int maxLength(int length, float maxPerElement) {
+        return (int) Math.ceil(length * (double) maxPerElement);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2 + 1);
+        buffer.flip();
+        return grown.put(buffer);
+    }
+
+    private static CharBuffer grow(CharBuffer buffer) {
+        CharBuffer grown = CharBuffer.allocate(buffer.capacity() * 2 + 1);
+        buffer.flip();
+        return grown.put(buffer);
+    }
+
+    /**
+     * Coders and scratch buffers of a single thread.
+     */
+    private static class Cache {
+        private final Charset[] charsets = new Charset[MAX_CACHED_CHARSETS];
+        private final CharsetEncoder[] encoders = new CharsetEncoder[MAX_CACHED_CHARSETS];
+        private final CharsetDecoder[] decoders = new CharsetDecoder[MAX_CACHED_CHARSETS];
+        private int nextToEvict = 0;
+
+        private CharBuffer charScratch = CharBuffer.allocate(0);
+        private ByteBuffer byteScratch = ByteBuffer.allocate(0);
+
+        CharsetEncoder encoder(Charset cs) {
+            int slot = slotOf(cs);
+            CharsetEncoder encoder = encoders[slot];
+            if (null == encoder) {
+                encoder = cs.newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                encoders[slot] = encoder;
+            } else {
+                encoder.reset();
+            }
+            return encoder;
+        }
+
+        /**
+         * Decoders leave the cache through {@link TelecomCodecs#decoder(Charset)} too, so settings which survive
+         * {@link CharsetDecoder#reset()} are restored on every call.
+         */
+        CharsetDecoder decoder(Charset cs) {
+            int slot = slotOf(cs);
+            CharsetDecoder decoder = decoders[slot];
+            if (null == decoder) {
+                decoder = cs.newDecoder();
+                decoders[slot] = decoder;
+            } else {
+                decoder.reset();
+            }
+            decoder.onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            if (decoder instanceof GSM7BitPackedDecoder) {
+                ((GSM7BitPackedDecoder) decoder).fillBits(0)
+                        .septetCount(GSM7BitPackedDecoder.UNKNOWN_SEPTET_COUNT)
+                        .crPadding(false);
+            }
+            return decoder;
+        }
+
+        CharBuffer charScratch(int length) {
+            if (length > MAX_SCRATCH_LENGTH) {
+                return CharBuffer.allocate(length);
+            }
+            if (charScratch.capacity() < length) {
+                charScratch = CharBuffer.allocate(length);
+            }
+            charScratch.clear();
+            return charScratch;
+        }
+
+        ByteBuffer byteScratch(int length) {
+            if (length > MAX_SCRATCH_LENGTH) {
+                return ByteBuffer.allocate(length);
+            }
+            if (byteScratch.capacity() < length) {
+                byteScratch = ByteBuffer.allocate(length);
+            }
+            byteScratch.clear();
+            return byteScratch;
+        }
+
+        private int slotOf(Charset cs) {
+            for (int i = 0; i < MAX_CACHED_CHARSETS; i++) {
+                if (charsets[i] == cs) {
+                    return i;
+                }
+            }
+            for (int i = 0; i < MAX_CACHED_CHARSETS; i++) {
+                if (cs.equals(charsets[i])) {
+                    return i;
+                }
+            }
+            int slot = nextToEvict;
+            nextToEvict = (nextToEvict + 1) % MAX_CACHED_CHARSETS;
+
+            charsets[slot] = cs;
+            encoders[slot] = null;
+            decoders[slot] = null;
+            return slot;
+        }
+    }
+}
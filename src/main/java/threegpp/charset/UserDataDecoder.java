@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import threegpp.charset.gsm.GSM7BitPackedCharset;
+import threegpp.charset.gsm.GSM7BitPackedDecoder;
+import threegpp.charset.gsm.NationalLanguage;
+import threegpp.charset.gsm.SeptetPacker;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import static threegpp.charset.Util.keepUnsigned;
+
+/**
+ * Decodes text of TP-User-Data (ETSI TS 123 040, 9.2.3.24) straight from a PDU buffer.
+ * <p>
+ * The caller gives the offset of TP-UD in the buffer together with TP-UDHI, TP-DCS and TP-UDL of the PDU. The length
+ * of the User Data Header is read from the buffer and skipped; GSM 7 bit text is unpacked from the octet after the
+ * header with the fill bits that follow it and exactly as many septets as TP-UDL counts, UCS2 text is decoded as
+ * UTF-16BE. Coders work on the PDU buffer itself, its position and limit are restored afterwards, so nothing is
+ * copied and nothing is allocated per message. Malformed input and unmappable characters are replaced.
+ * <p>
+ * National language locking and single shift information elements of the header (ETSI TS 123 040, 9.2.3.24.15 and
+ * 9.2.3.24.16) select tables of GSM 7 bit text while the header is skipped. A table without such element comes from
+ * the charset given to the constructor, unknown languages are ignored.
+ * <p>
+ * Instances reuse their coders and are not thread safe.
+ */
+public final class UserDataDecoder {
+    private static final int MAX_USER_DATA_LENGTH = 0xFF;
+    private static final int LANGUAGES = NationalLanguage.values().length;
+
+    private final NationalLanguage defaultLockingShift;
+    private final NationalLanguage defaultSingleShift;
+    private final GSM7BitPackedDecoder[][] gsmDecoders = new GSM7BitPackedDecoder[LANGUAGES][LANGUAGES];
+    private final CharsetDecoder ucs2Decoder;
+    private final UserDataHeaderIterator header = new UserDataHeaderIterator();
+    private final CharBuffer scratch = CharBuffer.allocate(MAX_USER_DATA_LENGTH);
+    private int headerLength;
+    private NationalLanguage lockingShift;
+    private NationalLanguage singleShift;
+
+    public UserDataDecoder() {
+        this(new GSM7BitPackedCharset());
+    }
+
+    /**
+     * @param gsmCharset charset of GSM 7 bit text with tables used when the header has no national language elements
+     */
+    public UserDataDecoder(GSM7BitPackedCharset gsmCharset) {
+        defaultLockingShift = gsmCharset.lockingShift();
+        defaultSingleShift = gsmCharset.singleShift();
+        lockingShift = defaultLockingShift;
+        singleShift = defaultSingleShift;
+        gsmDecoders[defaultLockingShift.ordinal()][defaultSingleShift.ordinal()] =
+                (GSM7BitPackedDecoder) replacing(gsmCharset.newDecoder());
+        ucs2Decoder = replacing(Charset.forName("UTF-16BE").newDecoder());
+    }
+
+    /**
+     * Decode text of TP-User-Data into a char buffer.
+     * @param pdu buffer holding the PDU, its position and limit are kept
+     * @param offset index of the first octet of TP-UD in the buffer
+     * @param udhi TP-User-Data-Header-Indicator
+     * @param dcs TP-Data-Coding-Scheme
+     * @param udl TP-User-Data-Length: septets for GSM 7 bit alphabet and octets otherwise, header included
+     * @param out destination of the text
+     * @return {@link CoderResult#UNDERFLOW} if the text is decoded, {@link CoderResult#OVERFLOW} if it does not fit
+     * into the output (the output is left as it was), malformed result if the header or TP-UDL run out of the
+     * buffer, unmappable result if user data is 8 bit data or compressed, i.e. is not text
+     */
+    public CoderResult decode(ByteBuffer pdu, int offset, boolean udhi, int dcs, int udl, CharBuffer out) {
+        headerLength = 0;
+        lockingShift = defaultLockingShift;
+        singleShift = defaultSingleShift;
+        DataCodingScheme scheme = DataCodingScheme.forSms(dcs);
+        if (scheme.isCompressed() || scheme.alphabet() == DataCodingScheme.Alphabet.DATA_8BIT) {
+            return CoderResult.unmappableForLength(1);
+        }
+        final boolean gsm = scheme.alphabet() == DataCodingScheme.Alphabet.GSM_7BIT;
+        final int octets = gsm ? SeptetPacker.packedLength(udl, 0) : udl;
+        if (udl < 0 || offset < 0 || offset + octets > pdu.limit()) {
+            return CoderResult.malformedForLength(1);
+        }
+        if (udhi && octets > 0) {
+            headerLength = keepUnsigned(pdu.get(offset)) + 1;
+        }
+        if (headerLength > octets) {
+            headerLength = 0;
+            return CoderResult.malformedForLength(1);
+        }
+
+        CharsetDecoder decoder;
+        int end;
+        if (gsm) {
+            int septets = udl - SmsSegmenter.headerSeptets(headerLength);
+            if (septets < 0) {
+                return CoderResult.malformedForLength(1);
+            }
+            if (headerLength > 0) {
+                selectTables(pdu, offset);
+            }
+            GSM7BitPackedDecoder gsmDecoder = gsmDecoder();
+            gsmDecoder.reset();
+            gsmDecoder.fillBits(SmsSegmenter.fillBits(headerLength)).septetCount(septets);
+            decoder = gsmDecoder;
+            end = offset + octets;
+        } else {
+            decoder = ucs2Decoder.reset();
+            end = offset + udl;
+        }
+        return decode(decoder, pdu, offset + headerLength, end, out);
+    }
+
+    /**
+     * Decode text of TP-User-Data and append it to a string builder.
+     * @return {@link CoderResult#UNDERFLOW} if the text is appended, error result as the other method returns
+     * @see #decode(ByteBuffer, int, boolean, int, int, CharBuffer)
+     */
+    public CoderResult decode(ByteBuffer pdu, int offset, boolean udhi, int dcs, int udl, StringBuilder out) {
+        scratch.clear();
+        CoderResult result = decode(pdu, offset, udhi, dcs, udl, scratch);
+        if (result.isUnderflow()) {
+            out.append(scratch.array(), 0, scratch.position());
+        }
+        return result;
+    }
+
+    /**
+     * @return length of the User Data Header of the last decoded TP-UD in octets (length octet included),
+     * 0 when there is none
+     */
+    public int headerLength() {
+        return headerLength;
+    }
+
+    /**
+     * @return language of the locking shift table of the last decoded GSM 7 bit text
+     */
+    public NationalLanguage lockingShift() {
+        return lockingShift;
+    }
+
+    /**
+     * @return language of the single shift table of the last decoded GSM 7 bit text
+     */
+    public NationalLanguage singleShift() {
+        return singleShift;
+    }
+
+    /**
+     * Take national language identifiers of shift elements, the last element of a kind wins.
+     */
+    private void selectTables(ByteBuffer pdu, int offset) {
+        header.reset(pdu, offset);
+        while (header.next()) {
+            int iei = header.iei();
+            if ((iei == UserDataHeaderIterator.IEI_LOCKING_SHIFT || iei == UserDataHeaderIterator.IEI_SINGLE_SHIFT)
+                    && header.length() > 0) {
+                NationalLanguage language = NationalLanguage.forIdentifier(header.value(0));
+                if (language == null) {
+                    continue;
+                }
+                if (iei == UserDataHeaderIterator.IEI_SINGLE_SHIFT) {
+                    singleShift = language;
+                } else {
+                    lockingShift = language.hasLockingShiftTable() ? language : NationalLanguage.DEFAULT;
+                }
+            }
+        }
+    }
+
+    private GSM7BitPackedDecoder gsmDecoder() {
+        GSM7BitPackedDecoder decoder = gsmDecoders[lockingShift.ordinal()][singleShift.ordinal()];
+        if (decoder == null) {
+            GSM7BitPackedCharset charset = GSM7BitPackedCharset.forLanguages(lockingShift, singleShift);
+            decoder = (GSM7BitPackedDecoder) replacing(charset.newDecoder());
+            gsmDecoders[lockingShift.ordinal()][singleShift.ordinal()] = decoder;
+        }
+        return decoder;
+    }
+
+    private static CoderResult decode(CharsetDecoder decoder, ByteBuffer pdu, int start, int end, CharBuffer out) {
+        final int position = pdu.position();
+        final int limit = pdu.limit();
+        final int outPosition = out.position();
+        try {
+            pdu.limit(end).position(start);
+            CoderResult result = decoder.decode(pdu, out, true);
+            if (result.isUnderflow()) {
+                result = decoder.flush(out);
+            }
+            if (result.isOverflow()) {
+                out.position(outPosition);
+            }
+            return result;
+        } finally {
+            pdu.limit(limit).position(position);
+        }
+    }
+
+    private static CharsetDecoder replacing(CharsetDecoder decoder) {
+        return decoder.onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import java.nio.ByteBuffer;
+
+import static threegpp.charset.Util.keepUnsigned;
+
+/**
+ * Flyweight iterator over information elements of a User Data Header (ETSI TS 123 040, 9.2.3.24) in a buffer.
+ * <p>
+ * Each {@link #next()} moves to the following element and exposes its identifier (IEI), length and the offset of its
+ * value in the buffer, values are read in place with {@link #value(int)}. Buffer position and limit are not changed
+ * and nothing is allocated, so one instance serves any number of messages after {@link #reset(ByteBuffer, int)}.
+ * An element running past the header or the buffer ends iteration and marks the header malformed.
+ * <p>
+ * Instances are not thread safe.
+ */
+public final class UserDataHeaderIterator {
+    public static final int IEI_CONCATENATED_8BIT = 0x00;
+    public static final int IEI_APPLICATION_PORT_8BIT = 0x04;
+    public static final int IEI_APPLICATION_PORT_16BIT = 0x05;
+    public static final int IEI_CONCATENATED_16BIT = 0x08;
+    public static final int IEI_SINGLE_SHIFT = 0x24;
+    public static final int IEI_LOCKING_SHIFT = 0x25;
+
+    public static final int NO_ELEMENT = -1;
+
+    static final int IE_HEADER_LENGTH = 2;      // IEI, length
+
+    private ByteBuffer buffer;
+    private int headerLength;
+    private int end;
+    private int position;
+    private boolean malformed;
+
+    private int iei = NO_ELEMENT;
+    private int length;
+    private int valueOffset;
+
+    /**
+     * Start iteration over a header.
+     * @param buffer buffer holding the header
+     * @param offset index of the User Data Header Length octet in the buffer
+     * @return this iterator
+     * @throws IndexOutOfBoundsException if offset is not within the limit of the buffer
+     */
+    public UserDataHeaderIterator reset(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        headerLength = keepUnsigned(buffer.get(offset)) + 1;
+        int headerEnd = offset + headerLength;
+        malformed = headerEnd > buffer.limit();
+        end = Math.min(headerEnd, buffer.limit());
+        position = offset + 1;
+        iei = NO_ELEMENT;
+        length = 0;
+        valueOffset = position;
+        return this;
+    }
+
+    /**
+     * Move to the next information element.
+     * @return false if there are no more elements or the next one is malformed
+     */
+    public boolean next() {
+        if (position >= end) {
+            return noElement();
+        }
+        if (position + IE_HEADER_LENGTH > end) {
+            malformed = true;
+            return noElement();
+        }
+        int elementLength = keepUnsigned(buffer.get(position + 1));
+        if (position + IE_HEADER_LENGTH + elementLength > end) {
+            malformed = true;
+            return noElement();
+        }
+        iei = keepUnsigned(buffer.get(position));
+        length = elementLength;
+        valueOffset = position + IE_HEADER_LENGTH;
+        position = valueOffset + elementLength;
+        return true;
+    }
+
+    /**
+     * @return identifier of the current element or {@link #NO_ELEMENT}
+     */
+    public int iei() {
+        return iei;
+    }
+
+    /**
+     * @return length of the value of the current element in octets
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return index of the first value octet of the current element in the buffer
+     */
+    public int valueOffset() {
+        return valueOffset;
+    }
+
+    /**
+     * @param index index of an octet within the value of the current element
+     * @return unsigned octet of the value
+     * @throws IndexOutOfBoundsException if index is not within the value
+     */
+    public int value(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Octet " + index + " of " + length);
+        }
+        return keepUnsigned(buffer.get(valueOffset + index));
+    }
+
+    /**
+     * @return length of the header in octets, the length octet included
+     */
+    public int headerLength() {
+        return headerLength;
+    }
+
+    /**
+     * @return true if the header runs past the buffer or an element runs past the header
+     */
+    public boolean isMalformed() {
+        return malformed;
+    }
+
+    private boolean noElement() {
+        position = end;
+        iei = NO_ELEMENT;
+        length = 0;
+        return false;
+    }
+}
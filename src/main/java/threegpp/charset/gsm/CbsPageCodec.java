@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.gsm;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.util.Arrays;
+
+/**
+ * Codec of Cell Broadcast message pages in GSM 7 bit default alphabet (ETSI TS 123 041, 9.4.1.2.2 and
+ * ETSI TS 123 038, 6.1.2.2). A page is 82 octets holding 93 packed septets, text shorter than a page is padded
+ * with &lt;CR&gt;.
+ * <p>
+ * Decoding unpacks whole pages with {@link SeptetPacker}, drops trailing &lt;CR&gt; septets before they are mapped
+ * and appends the chars of consecutive pages to one {@link CharBuffer}. Encoding collects septets of a page and packs
+ * it padded straight into the output, an escape sequence is never split between pages.
+ * <p>
+ * A real &lt;CR&gt; at the end of a page can not be told from padding and is dropped as well. Instances keep septets
+ * of the page being encoded and are not thread safe.
+ */
+public final class CbsPageCodec {
+    public static final int PAGE_OCTETS = 82;
+    public static final int PAGE_SEPTETS = 93;
+
+    private final GSMTable table;
+    private final byte[] septets = new byte[PAGE_SEPTETS];
+    private final byte[] page = new byte[PAGE_OCTETS];
+    private final char[] chars = new char[PAGE_SEPTETS];
+    private int pendingSeptets = 0;
+
+    /**
+     * Codec of pages in GSM 7 bit default alphabet.
+     */
+    public CbsPageCodec() {
+        this(GSMTable.DEFAULT);
+    }
+
+    /**
+     * Codec of pages in tables of the charset.
+     * @param charset charset with the locking shift and single shift tables to use
+     */
+    public CbsPageCodec(GSM7BitPackedCharset charset) {
+        this(charset.table());
+    }
+
+    private CbsPageCodec(GSMTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Decode as many whole pages as input and output allow. Chars of a page are written only when all of them fit.
+     * @param in pages, a trailing incomplete page is left in the buffer
+     * @param out chars of all decoded pages, padding excluded
+     * @return {@link CoderResult#UNDERFLOW} if less than a page of input is left,
+     * {@link CoderResult#OVERFLOW} if chars of the next page do not fit into the output
+     */
+    public CoderResult decode(ByteBuffer in, CharBuffer out) {
+        while (in.remaining() >= PAGE_OCTETS) {
+            final int position = in.position();
+            if (in.hasArray()) {
+                SeptetPacker.unpack(in.array(), in.arrayOffset() + position, PAGE_SEPTETS, septets, 0, 0);
+            } else {
+                in.get(page);
+                in.position(position);
+                SeptetPacker.unpack(page, 0, PAGE_SEPTETS, septets, 0, 0);
+            }
+            int length = map(trimPadding());
+            if (out.remaining() < length) {
+                return CoderResult.OVERFLOW;
+            }
+            out.put(chars, 0, length);
+            in.position(position + PAGE_OCTETS);
+        }
+        return CoderResult.UNDERFLOW;
+    }
+
+    /**
+     * Encode chars into pages. A page is written when the next char does not fit into it or, padded, when input
+     * is over. A char is consumed only when there is room for the page it completes.
+     * @param in chars to encode
+     * @param out whole pages of {@link #PAGE_OCTETS} octets
+     * @param endOfInput true if no more chars follow, the last page is written then
+     * @return {@link CoderResult#UNDERFLOW} if all input is consumed, {@link CoderResult#OVERFLOW} if there is
+     * no room for a page, unmappable result of length 1 with input positioned at the char absent in the tables
+     */
+    public CoderResult encode(CharBuffer in, ByteBuffer out, boolean endOfInput) {
+        while (in.hasRemaining()) {
+            int code = table.toCode(in.get(in.position()));
+            if (code == GSMTable.UNMAPPABLE) {
+                return CoderResult.unmappableForLength(1);
+            }
+            boolean escaped = (code & GSMTable.ESCAPE_FLAG) != 0;
+            if (pendingSeptets + (escaped ? 2 : 1) > PAGE_SEPTETS) {
+                if (out.remaining() < PAGE_OCTETS) {
+                    return CoderResult.OVERFLOW;
+                }
+                writePage(out);
+            }
+            if (escaped) {
+                septets[pendingSeptets++] = GSMCharset.GSM_EXTENDED_ESCAPE;
+                septets[pendingSeptets++] = (byte) (code & ~GSMTable.ESCAPE_FLAG);
+            } else {
+                septets[pendingSeptets++] = (byte) code;
+            }
+            in.position(in.position() + 1);
+        }
+        if (endOfInput && pendingSeptets > 0) {
+            if (out.remaining() < PAGE_OCTETS) {
+                return CoderResult.OVERFLOW;
+            }
+            writePage(out);
+        }
+        return CoderResult.UNDERFLOW;
+    }
+
+    /**
+     * Forget septets of a not yet written page.
+     */
+    public void reset() {
+        pendingSeptets = 0;
+    }
+
+    private void writePage(ByteBuffer out) {
+        Arrays.fill(septets, pendingSeptets, PAGE_SEPTETS, GSMCharset.GSM_CARRIAGE_RETURN);
+        if (out.hasArray()) {
+            SeptetPacker.pack(septets, 0, PAGE_SEPTETS, out.array(), out.arrayOffset() + out.position(), 0);
+            out.position(out.position() + PAGE_OCTETS);
+        } else {
+            SeptetPacker.pack(septets, 0, PAGE_SEPTETS, page, 0, 0);
+            out.put(page);
+        }
+        pendingSeptets = 0;
+    }
+
+    /**
+     * @return number of septets before trailing &lt;CR&gt; padding
+     */
+    private int trimPadding() {
+        int end = PAGE_SEPTETS;
+        while (end > 0 && septets[end - 1] == GSMCharset.GSM_CARRIAGE_RETURN) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Map septets of a page to chars, an escape at the end of the page is dropped.
+     * @return number of chars
+     */
+    private int map(int septetCount) {
+        final char[] basic = table.basic();
+        final char[] extension = table.extension();
+        int length = 0;
+
+        for (int i = 0; i < septetCount; i++) {
+            int septet = septets[i];
+            if (septet != GSMCharset.GSM_EXTENDED_ESCAPE) {
+                chars[length++] = basic[septet];
+            } else if (++i < septetCount) {
+                septet = septets[i];
+                char decoded = extension[septet];
+                chars[length++] = decoded != GSMTable.NO_CHAR ? decoded : basic[septet];
+            }
+        }
+        return length;
+    }
+}
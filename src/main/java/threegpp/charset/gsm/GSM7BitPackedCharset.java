@@ -31,16 +31,55 @@ import java.util.Locale;
  * <p>
  * Text charset name: X-GSM7BIT-PACKED
  * Name aliases: GSM-PACKED, GSM-7BIT-PACKED, GSM7BP
+ * <p>
+ * National language tables are available through {@link #forLanguages(NationalLanguage, NationalLanguage)},
+ * names of such charsets follow {@link GSMCharset}, e.g. X-GSM7BIT-PACKED-LOCKING-TR-SHIFT-TR.
  */
 public class GSM7BitPackedCharset extends Charset {
 
     private static final String CANONICAL_NAME = "X-GSM7BIT-PACKED";
     private static final String [] ALIASES = {"GSM-PACKED", "GSM-7BIT-PACKED", "GSM7BP"};
-    static final GSMCharset underlyingCharset = new GSMCharset();
 
+    private final NationalLanguage lockingShift;
+    private final NationalLanguage singleShift;
 
     public GSM7BitPackedCharset() {
-        super(CANONICAL_NAME, ALIASES);
+        this(CANONICAL_NAME, ALIASES, NationalLanguage.DEFAULT, NationalLanguage.DEFAULT);
+    }
+
+    private GSM7BitPackedCharset(String canonicalName, String[] aliases,
+                                 NationalLanguage lockingShift, NationalLanguage singleShift) {
+        super(canonicalName, aliases);
+        this.lockingShift = lockingShift;
+        this.singleShift = singleShift;
+    }
+
+    /**
+     * Create GSM 7 bit packed charset with national language tables.
+     * @param lockingShift language of the locking shift table, used instead of the default alphabet; languages
+     *                     without locking shift table keep the default alphabet
+     * @param singleShift language of the single shift table, used instead of the default extension table
+     * @return charset
+     */
+    public static GSM7BitPackedCharset forLanguages(NationalLanguage lockingShift, NationalLanguage singleShift) {
+        NationalLanguage locking = lockingShift.lockingShiftTableLanguage();
+        if (locking == NationalLanguage.DEFAULT && singleShift == NationalLanguage.DEFAULT) {
+            return new GSM7BitPackedCharset();
+        }
+        return new GSM7BitPackedCharset(NationalLanguage.charsetName(CANONICAL_NAME, locking, singleShift), null,
+                locking, singleShift);
+    }
+
+    public NationalLanguage lockingShift() {
+        return lockingShift;
+    }
+
+    public NationalLanguage singleShift() {
+        return singleShift;
+    }
+
+    GSMTable table() {
+        return GSMTable.of(lockingShift, singleShift);
     }
 
     @Override
@@ -60,7 +99,10 @@ public class GSM7BitPackedCharset extends Charset {
 
     @Override
     public boolean contains(Charset cs) {
-        return cs instanceof GSM7BitPackedCharset || cs instanceof GSMCharset;
+        if (cs instanceof GSM7BitPackedCharset) {
+            return ((GSM7BitPackedCharset) cs).table() == table();
+        }
+        return cs instanceof GSMCharset && ((GSMCharset) cs).table() == table();
     }
 
     @Override
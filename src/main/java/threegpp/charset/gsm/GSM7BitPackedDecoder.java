@@ -19,152 +19,306 @@
 
 package threegpp.charset.gsm;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 
 import static threegpp.charset.Util.keepUnsigned;
 
+/**
+ * Incremental decoder of GSM 7 bit packed data (ETSI TS 123 038, 6.1.2.1). Only bits of a not yet completed septet
+ * are kept between calls, every completed septet is mapped to a char and written to the output immediately.
+ * <p>
+ * When input ends with 7 spare bits (on a 7 octet boundary without fill bits) the last septet is ambiguous: it is
+ * either a real '@' or zero padding. Such septet is held back until more input arrives and dropped if input is over.
+ * <p>
+ * Unpacking may start at a bit offset of the first octet ({@link #fillBits(int)}), e.g. to decode TP-User-Data
+ * right after its User Data Header (ETSI TS 123 040, 9.2.3.24) without copying it.
+ * <p>
+ * When the number of septets is known, e.g. from TP-User-Data-Length, it can be given with {@link #septetCount(int)}.
+ * Then exactly that many septets are decoded: nothing is guessed about a trailing zero septet, input after the last
+ * septet is skipped as padding and input ending before it is malformed.
+ * <p>
+ * With {@link #crPadding(boolean)} USSD packing (ETSI TS 123 038, 6.1.2.3.1) is expected: &lt;CR&gt; in 7 spare bits of
+ * the last octet is padding and a zero septet there is a real '@'. A doubled trailing &lt;CR&gt; is kept as is,
+ * the standard lets the receiver perform it twice.
+ */
 public class GSM7BitPackedDecoder extends CharsetDecoder {
+    public static final int UNKNOWN_SEPTET_COUNT = -1;
+
     private static final float AVG_CHARS_PER_BYTE = 8.0f/7.0f;
     private static final float MAX_CHARS_PER_BYTE = AVG_CHARS_PER_BYTE;
 
-    private Unpacker7Bit unpacker;
-    private ByteBuffer unpacked7Bit;
-    private CharsetDecoder decoder;
+    private static final int SEPTET_BITS = 7;
+    private static final int SEPTET_MASK = 0x7F;
+    private static final int BITS_PER_BYTE = 8;
+    private static final int SEPTETS_PER_BLOCK = 8;
+    private static final int OCTETS_PER_BLOCK = 7;
+
+    private static final long LANE_ONES = 0x0101010101010101L;
+    private static final long LANE_HIGH_BITS = 0x8080808080808080L;
+    private static final long LANE_ESCAPES = LANE_ONES * GSMCharset.GSM_EXTENDED_ESCAPE;
+
+    private final GSMTable table;
+    private int fillBits = 0;
+    private boolean crPadding = false;
+    private boolean started = false;
+    private boolean septetDecoded = false;
+    private int septetCount = UNKNOWN_SEPTET_COUNT;
+    private int septetsLeft = UNKNOWN_SEPTET_COUNT;
+    private int carry = 0;
+    private int carryBits = 0;
+    private boolean nextCharIsExtended = false;
 
     GSM7BitPackedDecoder(GSM7BitPackedCharset cs) {
         super(cs, AVG_CHARS_PER_BYTE, MAX_CHARS_PER_BYTE);
-        decoder = cs.underlyingCharset.newDecoder();
+        table = cs.table();
     }
 
-    @Override
-    protected CoderResult implFlush(CharBuffer out) {
+    /**
+     * Set the number of fill bits to skip in the low bits of the first octet. The setting survives {@link #reset()}.
+     * @param fillBits 0..{@link SeptetPacker#MAX_FILL_BITS}
+     * @return this decoder
+     * @throws IllegalArgumentException if fill bits are out of range
+     * @throws IllegalStateException if decoding has already started
+     */
+    public final GSM7BitPackedDecoder fillBits(int fillBits) {
+        SeptetPacker.checkFillBits(fillBits);
+        if (started) {
+            throw new IllegalStateException("Fill bits can be changed only before decoding or after reset");
+        }
+        this.fillBits = fillBits;
+        return this;
+    }
 
-        if (out.hasRemaining()) {
-            if (null == unpacked7Bit) {
-                unpacked7Bit = unpacker.getDecodedBytes();
-            }
-            return decoder.decode(unpacked7Bit, out, true);
+    public final int fillBits() {
+        return fillBits;
+    }
+
+    /**
+     * Set the exact number of septets to decode, escape septets included. The setting survives {@link #reset()}.
+     * @param septetCount number of septets or {@link #UNKNOWN_SEPTET_COUNT} to decode all input
+     * @return this decoder
+     * @throws IllegalArgumentException if septet count is negative and not {@link #UNKNOWN_SEPTET_COUNT}
+     * @throws IllegalStateException if decoding has already started
+     */
+    public final GSM7BitPackedDecoder septetCount(int septetCount) {
+        if (septetCount < UNKNOWN_SEPTET_COUNT) {
+            throw new IllegalArgumentException("Negative septet count: " + septetCount);
+        }
+        if (started) {
+            throw new IllegalStateException("Septet count can be changed only before decoding or after reset");
         }
-        return CoderResult.OVERFLOW;
+        this.septetCount = septetCount;
+        this.septetsLeft = septetCount;
+        return this;
     }
 
-    @Override
-    protected void implReset() {
-        decoder.reset();
-        unpacked7Bit = null;
-        unpacker = null;
+    public final int septetCount() {
+        return septetCount;
     }
 
+    /**
+     * Switch &lt;CR&gt; padding of USSD on or off. The setting survives {@link #reset()}.
+     * @return this decoder
+     * @throws IllegalStateException if decoding has already started
+     */
+    public final GSM7BitPackedDecoder crPadding(boolean crPadding) {
+        if (started) {
+            throw new IllegalStateException("Padding can be changed only before decoding or after reset");
+        }
+        this.crPadding = crPadding;
+        return this;
+    }
+
+    public final boolean crPadding() {
+        return crPadding;
+    }
+
+    /**
+     * Anything left at this point is padding: either less than 7 fill bits or a held back zero septet.
+     * With a known septet count missing septets are malformed input.
+     */
     @Override
-    protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
-        while (in.hasRemaining()) {
-            if (null == unpacker) {
-                unpacker = new Unpacker7Bit(in.remaining());
+    protected CoderResult implFlush(CharBuffer out) {
+        if (septetsLeft <= 0) {
+            return CoderResult.UNDERFLOW;
+        }
+        CodingErrorAction action = malformedInputAction();
+        if (action == CodingErrorAction.REPORT) {
+            return CoderResult.malformedForLength(1);
+        }
+        if (action == CodingErrorAction.REPLACE) {
+            if (out.remaining() < replacement().length()) {
+                return CoderResult.OVERFLOW;
             }
-            unpacker.decode(in);
+            out.put(replacement());
         }
+        septetsLeft = 0;
         return CoderResult.UNDERFLOW;
     }
 
-    private static class Unpacker7Bit {
+    @Override
+    protected void implReset() {
+        started = false;
+        septetDecoded = false;
+        septetsLeft = septetCount;
+        carry = 0;
+        carryBits = 0;
+        nextCharIsExtended = false;
+    }
 
-        private final ByteArrayOutputStream decodedFrom7Bit;
-        private final DecodingCycleStepsIterator stepsIterator = new DecodingCycleStepsIterator();
-        private int tailFromPrevStep;
-        private boolean tailInitialized = false;
+    /**
+     * On octet boundary whole 7 octet blocks of heap buffer data are unpacked a block at a time into byte lanes
+     * of a {@code long} (see {@link SeptetPacker}).
+     * The last block of available input always goes through the bit by bit path because of padding ambiguity.
+     */
+    @Override
+    protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
+        final char[] basic = table.basic();
+        final char[] extension = table.extension();
+        final boolean arrayBacked = in.hasArray() && out.hasArray();
 
-        Unpacker7Bit(int initialSize) {
-            decodedFrom7Bit = new ByteArrayOutputStream(initialSize);
+        if (!started && in.hasRemaining()) {
+            started = true;
+            if (fillBits > 0) {
+                carry = keepUnsigned(in.get()) >>> fillBits;
+                carryBits = BITS_PER_BYTE - fillBits;
+            }
         }
+        while (true) {
+            if (septetsLeft == 0) {
+                in.position(in.limit());
+                return CoderResult.UNDERFLOW;
+            }
+            if (arrayBacked && carryBits == 0 && decodeAlignedRun(in, out, basic, extension)) {
+                continue;
+            }
+            if (carryBits >= SEPTET_BITS) {
+                if (septetsLeft < 0 && isPaddingCandidate() && !in.hasRemaining()) {
+                    return CoderResult.UNDERFLOW;
+                }
+                int septet = carry & SEPTET_MASK;
 
-        void decode(ByteBuffer in) {
-            while (in.hasRemaining()) {
-                DecodingStepParameters stepParameters = stepsIterator.next();
-                if (stepParameters.isReinitStep()) {
-                    reinit();
+                if (nextCharIsExtended) {
+                    if (!out.hasRemaining()) {
+                        return CoderResult.OVERFLOW;
+                    }
+                    out.put(extendedChar(basic, extension, septet));
+                    nextCharIsExtended = false;
+                } else if (septet == GSMCharset.GSM_EXTENDED_ESCAPE) {
+                    nextCharIsExtended = true;
                 } else {
-                    int inputByte = keepUnsigned(in.get());
-                    int head = (inputByte & stepParameters.getMask()) << stepParameters.getLeftShift();
-                    int result = haveTail() ? (head | tailFromPrevStep) : head;
-                    decodedFrom7Bit.write(result);
-
-                    tailFromPrevStep = inputByte >> stepParameters.getRightShift();
-                    tailInitialized = true;
+                    if (!out.hasRemaining()) {
+                        return CoderResult.OVERFLOW;
+                    }
+                    out.put(basic[septet]);
+                }
+                carry >>>= SEPTET_BITS;
+                carryBits -= SEPTET_BITS;
+                septetDecoded = true;
+                if (septetsLeft > 0) {
+                    septetsLeft--;
                 }
-            }
-        }
 
-        ByteBuffer getDecodedBytes() {
-            if (haveTail() && tailHaveToBeKept()) {
-                decodedFrom7Bit.write(tailFromPrevStep);
-            }
-            return ByteBuffer.wrap(decodedFrom7Bit.toByteArray());
-        }
+            } else if (in.hasRemaining()) {
+                carry |= keepUnsigned(in.get()) << carryBits;
+                carryBits += BITS_PER_BYTE;
 
-        private void reinit() {
-            if (decodedFrom7Bit.size() > 0) {
-                decodedFrom7Bit.write(tailFromPrevStep);
+            } else {
+                return CoderResult.UNDERFLOW;
             }
-            tailInitialized = false;
-        }
-
-        private boolean haveTail() {
-            return tailInitialized;
-        }
-
-        private boolean tailHaveToBeKept() {
-            return tailFromPrevStep != 0;
         }
     }
 
-    private static class DecodingStepParameters {
-
-        private static int neutralRightShift = 0;
-
-        private final int leftShift;
-        private final int rightShift;
-        private final int mask;
-
-        DecodingStepParameters(int leftShift, int rightShift, int mask) {
-            this.leftShift = leftShift;
-            this.rightShift = rightShift;
-            this.mask = mask;
+    /**
+     * Unpack and map as many whole blocks as input, output and septet count allow, keeping at least one octet of input.
+     * A block without escapes is mapped lane by lane with no branches, others go septet by septet.
+     * @return false if there is no complete block to unpack
+     */
+    private boolean decodeAlignedRun(ByteBuffer in, CharBuffer out, char[] basic, char[] extension) {
+        int blocks = Math.min((in.remaining() - 1) / OCTETS_PER_BLOCK, out.remaining() / SEPTETS_PER_BLOCK);
+        if (septetsLeft >= 0) {
+            blocks = Math.min(blocks, septetsLeft / SEPTETS_PER_BLOCK);
         }
-
-        int getLeftShift() {
-            return leftShift;
+        if (blocks <= 0) {
+            return false;
         }
+        final byte[] src = in.array();
+        final int srcOffset = in.arrayOffset();
+        int srcPos = srcOffset + in.position();
 
-        int getRightShift() {
-            return rightShift;
-        }
+        final char[] dst = out.array();
+        final int dstOffset = out.arrayOffset();
+        int dstPos = dstOffset + out.position();
+        boolean extended = nextCharIsExtended;
+        final int runBlocks = blocks;
 
-        int getMask() {
-            return mask;
-        }
+        while (blocks-- > 0) {
+            long lanes = SeptetPacker.unpackToLanes(src, srcPos);
+            srcPos += OCTETS_PER_BLOCK;
 
-        boolean isReinitStep() {
-            return rightShift == neutralRightShift;
+            if (!extended && !hasEscape(lanes)) {
+                dst[dstPos] = basic[(int) lanes & SEPTET_MASK];
+                dst[dstPos + 1] = basic[(int) (lanes >>> 8) & SEPTET_MASK];
+                dst[dstPos + 2] = basic[(int) (lanes >>> 16) & SEPTET_MASK];
+                dst[dstPos + 3] = basic[(int) (lanes >>> 24) & SEPTET_MASK];
+                dst[dstPos + 4] = basic[(int) (lanes >>> 32) & SEPTET_MASK];
+                dst[dstPos + 5] = basic[(int) (lanes >>> 40) & SEPTET_MASK];
+                dst[dstPos + 6] = basic[(int) (lanes >>> 48) & SEPTET_MASK];
+                dst[dstPos + 7] = basic[(int) (lanes >>> 56) & SEPTET_MASK];
+                dstPos += SEPTETS_PER_BLOCK;
+                continue;
+            }
+            for (int i = 0; i < SEPTETS_PER_BLOCK; i++, lanes >>>= BITS_PER_BYTE) {
+                int septet = (int) lanes & SEPTET_MASK;
+                if (extended) {
+                    dst[dstPos++] = extendedChar(basic, extension, septet);
+                    extended = false;
+                } else if (septet == GSMCharset.GSM_EXTENDED_ESCAPE) {
+                    extended = true;
+                } else {
+                    dst[dstPos++] = basic[septet];
+                }
+            }
+        }
+        nextCharIsExtended = extended;
+        septetDecoded = true;
+        if (septetsLeft > 0) {
+            septetsLeft -= runBlocks * SEPTETS_PER_BLOCK;
         }
+        in.position(srcPos - srcOffset);
+        out.position(dstPos - dstOffset);
+        return true;
     }
 
-    private static class DecodingCycleStepsIterator {
-        private static final int[] leftShifts = {7, 0, 1, 2, 3, 4, 5, 6};
-        private static final int[] rightShifts = {0, 7, 6, 5, 4, 3, 2, 1};
-        private static final int[] masks = {0, 0x7F, 0x3F, 0x1F, 0xF, 0x7, 0x3, 0x1};
-
-        private int pos = 0;
+    /**
+     * Lane-parallel check for an escape septet: XOR turns escapes into zero lanes, then the classic "has zero byte"
+     * test applies. All lanes are below 0x80, so the test is exact.
+     */
+    private static boolean hasEscape(long lanes) {
+        long v = lanes ^ LANE_ESCAPES;
+        return ((v - LANE_ONES) & ~v & LANE_HIGH_BITS) != 0;
+    }
 
-        DecodingStepParameters next() {
-            if (pos == leftShifts.length) {
-                pos = 0;
-            }
-            return new DecodingStepParameters(leftShifts[pos], rightShifts[pos], masks[pos++]);
-        }
+    /**
+     * Code absent in the extension table is displayed as a character from the basic table (ETSI TS 123 038, 6.2.1.1).
+     */
+    private static char extendedChar(char[] basic, char[] extension, int septet) {
+        char decoded = extension[septet];
+        return decoded != GSMTable.NO_CHAR ? decoded : basic[septet];
     }
 
+    /**
+     * Seven pending bits at the end of input mean that 8 * octets - fill bits is a multiple of 7. They are padding
+     * only if that many bits hold one septet more than the encoded text, i.e. some septet was decoded before them:
+     * a single septet after one fill bit is real. Then zero value of them (&lt;CR&gt; in &lt;CR&gt; padding mode)
+     * may be padding.
+     */
+    private boolean isPaddingCandidate() {
+        return carryBits == SEPTET_BITS && septetDecoded
+                && carry == (crPadding ? GSMCharset.GSM_CARRIAGE_RETURN : 0);
+    }
 }
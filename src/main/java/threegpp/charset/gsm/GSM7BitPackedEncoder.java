@@ -19,292 +19,229 @@
 
 package threegpp.charset.gsm;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
-import java.util.NoSuchElementException;
-
-import static threegpp.charset.Util.keepUnsigned;
 
+/**
+ * Single pass encoder of GSM 7 bit packed data (ETSI TS 123 038, 6.1.2.1). Every char is mapped to one septet
+ * (two for extension table characters) which is packed into the output immediately. Only bits of a not yet
+ * completed octet are kept between calls and written on flush.
+ * <p>
+ * Packing may start at a bit offset of the first octet ({@link #fillBits(int)}), e.g. after a User Data Header
+ * (ETSI TS 123 040, 9.2.3.24) the septets begin on the next septet boundary, the fill bits before it are zero.
+ * <p>
+ * With {@link #crPadding(boolean)} the packing of USSD (ETSI TS 123 038, 6.1.2.3.1) is used: 7 spare bits of the last
+ * octet hold &lt;CR&gt; instead of zeros, which would read as '@', and a trailing &lt;CR&gt; ending on an octet
+ * boundary is followed by another &lt;CR&gt;.
+ */
 public class GSM7BitPackedEncoder extends CharsetEncoder {
     private static final float AVERAGE_BYTES_PER_CHAR = 0.875f;
     private static final float MAX_BYTES_PER_CHAR = 2.0f;
 
-    private CharsetEncoder encoder;
-    private ByteSaver byteSaver = null;
-    private BytePacker bytePacker = null;
+    private static final int SEPTET_BITS = 7;
+    private static final int BITS_PER_BYTE = 8;
+    private static final int SEPTETS_PER_BLOCK = 8;
+    private static final int OCTETS_PER_BLOCK = 7;
+    private static final int RUN_BLOCKS = 8;
+
+    private final GSMTable table;
+    private final byte[] run = new byte[RUN_BLOCKS * SEPTETS_PER_BLOCK];
+    private int fillBits = 0;
+    private boolean crPadding = false;
+    private boolean started = false;
+    private int lastSeptet = 0;
+    private int carry = 0;
+    private int carryBits = 0;
 
     GSM7BitPackedEncoder(GSM7BitPackedCharset cs) {
         super(cs, AVERAGE_BYTES_PER_CHAR, MAX_BYTES_PER_CHAR);
-        encoder = GSM7BitPackedCharset.underlyingCharset.newEncoder();
+        table = cs.table();
     }
 
     /**
-     * Do actual packing and put result data to output buffer.
+     * Set the number of zero fill bits in the low bits of the first octet. The setting survives {@link #reset()}.
+     * Empty input still encodes to no octets at all.
+     * @param fillBits 0..{@link SeptetPacker#MAX_FILL_BITS}
+     * @return this encoder
+     * @throws IllegalArgumentException if fill bits are out of range
+     * @throws IllegalStateException if encoding has already started
      */
-    @Override
-    protected CoderResult implFlush(ByteBuffer out) {
-        if(null == bytePacker) {
-            CoderResult result = byteSaver.flush(encoder);
-
-            if (!result.isUnderflow()) {
-                return result;
-            }
-            bytePacker = new BytePacker(byteSaver.iterator());
+    public final GSM7BitPackedEncoder fillBits(int fillBits) {
+        SeptetPacker.checkFillBits(fillBits);
+        if (started) {
+            throw new IllegalStateException("Fill bits can be changed only before encoding or after reset");
         }
-        return bytePacker.packBytes(out);
+        this.fillBits = fillBits;
+        return this;
     }
 
-    @Override
-    protected void implReset() {
-        encoder.reset();
-        byteSaver = null;
-        bytePacker = null;
+    public final int fillBits() {
+        return fillBits;
     }
 
     /**
-     * Here we can only encode chars to GSM codes and can't return data back to caller.
-     * All packing will be done on flush because we're sure input data are over.
+     * Switch &lt;CR&gt; padding of USSD on or off. The setting survives {@link #reset()}.
+     * @return this encoder
+     * @throws IllegalStateException if encoding has already started
      */
-    @Override
-    protected CoderResult encodeLoop(CharBuffer in, ByteBuffer out) {
-        if(null == byteSaver) {
-            byteSaver = new ByteSaver(in.remaining());
+    public final GSM7BitPackedEncoder crPadding(boolean crPadding) {
+        if (started) {
+            throw new IllegalStateException("Padding can be changed only before encoding or after reset");
         }
-        return byteSaver.encode(in, encoder);
+        this.crPadding = crPadding;
+        return this;
     }
 
-    @Override
-    public boolean canEncode(char c) {
-        return encoder.canEncode(c);
+    public final boolean crPadding() {
+        return crPadding;
     }
 
+    /**
+     * Write the last partially filled octet, its unused bits are zero. In &lt;CR&gt; padding mode 7 unused bits
+     * become &lt;CR&gt;, and so does the first septet after a trailing &lt;CR&gt; on an octet boundary.
+     */
     @Override
-    public boolean canEncode(CharSequence cs) {
-        return encoder.canEncode(cs);
-    }
-
-    private static class ByteSaver {
-        private static final float INCREASE_THRESHOLD = 1.1f;
-
-        private ByteStore store;
-
-        ByteSaver(int size) {
-            store = new ByteStore(withThreshold(size));
-        }
-
-        ShiftedIntPairIterator iterator() {
-            return new ShiftedIntPairIterator(new IntIterator(store.getResultArray()));
-        }
-
-        CoderResult encode(CharBuffer in, CharsetEncoder encoder) {
-            CoderResult result = encoder.encode(in, store.asByteBuffer(), false);
-            store.flush();
-
-            while(result.isOverflow()) {
-                result = encoder.encode(in, store.asByteBuffer(), false);
-                store.flush();
+    protected CoderResult implFlush(ByteBuffer out) {
+        if (crPadding && started && needsCrPadding()) {
+            if (!out.hasRemaining()) {
+                return CoderResult.OVERFLOW;
             }
-            return result;
+            putSeptet(GSMCharset.GSM_CARRIAGE_RETURN, out);
         }
-
-        CoderResult flush(CharsetEncoder encoder) {
-            CoderResult result = encoder.encode(CharBuffer.wrap(""), store.asByteBuffer(), true);
-            store.flush();
-
-            if (!result.isUnderflow()) {
-                return result;
+        if (carryBits > 0) {
+            if (!out.hasRemaining()) {
+                return CoderResult.OVERFLOW;
             }
-            result = encoder.flush(store.asByteBuffer());
-            store.flush();
-
-            while(result.isOverflow()) {
-                result = encoder.flush(store.asByteBuffer());
-                store.flush();
-            }
-            return result;
-        }
-
-        private static int withThreshold(int val) {
-            return (int)(val * INCREASE_THRESHOLD);
+            out.put((byte) carry);
+            carry = 0;
+            carryBits = 0;
         }
+        return CoderResult.UNDERFLOW;
     }
 
-    private static class ByteStore {
-        private ByteArrayOutputStream store;
-        private byte [] bufferBackend;
-        private ByteBuffer buffer;
-
-        ByteStore(int size) {
-            store = new ByteArrayOutputStream(size);
-            bufferBackend = new byte[size];
-            buffer = ByteBuffer.wrap(bufferBackend);
-        }
-
-        ByteBuffer asByteBuffer() {
-            return buffer;
-        }
-
-        void flush() {
-            store.write(bufferBackend, 0, buffer.position());
-            buffer.rewind();
-        }
-
-        byte[] getResultArray() {
-            return store.toByteArray();
-        }
+    @Override
+    protected void implReset() {
+        started = false;
+        lastSeptet = 0;
+        carry = 0;
+        carryBits = 0;
     }
 
-    private static class BytePacker {
-
-        private ShiftedIntPairIterator iterator;
-        private EncodingCycleStepsIterator stepsIterator = new EncodingCycleStepsIterator();
-        private EncodingStepParameters currentStep;
+    /**
+     * A char is consumed only when there is room for all octets its septets complete, so nothing but the carry bits
+     * has to be kept when output is full.
+     * <p>
+     * On octet boundary runs of heap buffer data without extension table characters are packed by whole blocks
+     * with {@link SeptetPacker}.
+     */
+    @Override
+    protected CoderResult encodeLoop(CharBuffer in, ByteBuffer out) {
+        final boolean arrayBacked = in.hasArray() && out.hasArray();
 
-        BytePacker(ShiftedIntPairIterator iterator) {
-            this.iterator = iterator;
+        if (!started && in.hasRemaining()) {
+            started = true;
+            carryBits = fillBits;
         }
-
-        CoderResult packBytes(ByteBuffer out) {
-            while(iterator.hasNext()) {
-                if(!out.hasRemaining()) {
-                    return CoderResult.OVERFLOW;
-                }
-                IntPair pair = iterator.next();
-                currentStep = stepsIterator.next();
-                if(currentStep.shouldBeDone()) {
-                    out.put(pack(pair, currentStep));
-                }
+        while (in.hasRemaining()) {
+            if (arrayBacked && carryBits == 0 && encodeAlignedRun(in, out)) {
+                continue;
             }
-            return CoderResult.UNDERFLOW;
-        }
-
-        int getNumberOfUsedBitsInLastByte() {
-            return currentStep.getLeftShift();
-        }
-
-        private byte pack(IntPair bytes, EncodingStepParameters parameters) {
-            int half1 = bytes.getFirst() >> parameters.getRightShift();
-            int half2 = bytes.getSecond() << parameters.getLeftShift();
-
-            return (byte)(keepUnsigned(half1 | half2));
-        }
-    }
-
-    private static class IntPair {
-        private int first;
-        private int second;
-
-        IntPair(int f, int s) {
-            first = f;
-            second = s;
-        }
-
-        int getFirst() {
-            return first;
-        }
-
-        int getSecond() {
-            return second;
-        }
-    }
-
-    private static class ShiftedIntPairIterator {
-        private IntIterator iterator;
-        private int first;
-        private int second;
-        private boolean initial = true;
-        private boolean stop = false;
-
-        ShiftedIntPairIterator(IntIterator iterator) {
-            this.iterator = iterator;
-        }
-
-        boolean hasNext() {
-            return !stop;
-        }
-
-        IntPair next() {
-            if (!hasNext()) {
-                throw new NoSuchElementException();
+            int code = table.toCode(in.get());
+            if (code == GSMTable.UNMAPPABLE) {
+                in.position(in.position() - 1);
+                return CoderResult.unmappableForLength(1);
             }
-
-            if (initial) {
-                first = iterator.next();
-                initial = false;
-            } else {
-                first = second;
+            boolean escaped = shouldBeEscaped(code);
+            int bits = carryBits + (escaped ? 2 * SEPTET_BITS : SEPTET_BITS);
+            if (out.remaining() < bits / BITS_PER_BYTE) {
+                in.position(in.position() - 1);
+                return CoderResult.OVERFLOW;
             }
-            if (iterator.hasNext()) {
-                second = iterator.next();
+            if (escaped) {
+                putSeptet(GSMCharset.GSM_EXTENDED_ESCAPE, out);
+                putSeptet(clearEscapeFlag(code), out);
             } else {
-                second = 0;
-                stop = true;
+                putSeptet(code, out);
             }
-            return new IntPair(first, second);
         }
+        return CoderResult.UNDERFLOW;
     }
 
-    private static class EncodingStepParameters {
-        private final int SKIP_STEP_NUM = 7;
-
-        int rightShift;
-        int leftShift;
+    @Override
+    public boolean canEncode(char c) {
+        return table.toCode(c) != GSMTable.UNMAPPABLE;
+    }
 
-        EncodingStepParameters(int rShift, int lShift) {
-            rightShift = rShift;
-            leftShift = lShift;
+    @Override
+    public boolean canEncode(CharSequence cs) {
+        for (int i = 0, length = cs.length(); i < length; i++) {
+            if (table.toCode(cs.charAt(i)) == GSMTable.UNMAPPABLE) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        int getRightShift() {
-            return rightShift;
+    /**
+     * Map as many whole blocks of chars as input, output and run buffer allow and pack them at once.
+     * @return false if there is no complete block to pack, e.g. an extension table character is among next 8 chars
+     */
+    private boolean encodeAlignedRun(CharBuffer in, ByteBuffer out) {
+        int maxBlocks = Math.min(RUN_BLOCKS,
+                Math.min(in.remaining() / SEPTETS_PER_BLOCK, out.remaining() / OCTETS_PER_BLOCK));
+        if (maxBlocks == 0) {
+            return false;
+        }
+        final char[] src = in.array();
+        final int srcPos = in.arrayOffset() + in.position();
+        final int maxSeptets = maxBlocks * SEPTETS_PER_BLOCK;
+
+        int mapped = 0;
+        while (mapped < maxSeptets) {
+            int code = table.toCode(src[srcPos + mapped]);
+            if (code == GSMTable.UNMAPPABLE || shouldBeEscaped(code)) {
+                break;
+            }
+            run[mapped++] = (byte) code;
         }
-
-        int getLeftShift() {
-            return leftShift;
+        int septets = mapped - mapped % SEPTETS_PER_BLOCK;
+        if (septets == 0) {
+            return false;
         }
+        int octets = SeptetPacker.pack(run, 0, septets, out.array(), out.arrayOffset() + out.position(), 0);
 
-        boolean shouldBeDone() {
-            return rightShift != SKIP_STEP_NUM;
-        }
+        lastSeptet = run[septets - 1];
+        in.position(in.position() + septets);
+        out.position(out.position() + octets);
+        return true;
     }
 
-    private static class EncodingCycleStepsIterator {
-        private final int[] rShifts = {0, 1, 2, 3, 4, 5, 6, 7};
-        private final int[] lShifts = {7, 6, 5, 4, 3, 2, 1, 0};
-
-        int pos = 0;
-
-        EncodingStepParameters next() {
-            if (pos == rShifts.length) {
-                pos = 0;
-            }
-            return new EncodingStepParameters(rShifts[pos], lShifts[pos++]);
-        }
+    /**
+     * Either 7 bits of the last octet are spare or the last &lt;CR&gt; ends on an octet boundary. Padding takes
+     * a single octet of output which is checked before, so it is never repeated after overflow.
+     */
+    private boolean needsCrPadding() {
+        return carryBits == 1 || carryBits == 0 && lastSeptet == GSMCharset.GSM_CARRIAGE_RETURN;
     }
 
-    private static class IntIterator {
-        private byte [] bytes;
-        private int pos = 0;
-
-        IntIterator(final byte [] bytes) {
-            if (null == bytes) {
-                throw new IllegalArgumentException();
-            }
-            this.bytes = bytes;
+    private void putSeptet(int septet, ByteBuffer out) {
+        lastSeptet = septet;
+        carry |= septet << carryBits;
+        carryBits += SEPTET_BITS;
+        if (carryBits >= BITS_PER_BYTE) {
+            out.put((byte) carry);
+            carry >>>= BITS_PER_BYTE;
+            carryBits -= BITS_PER_BYTE;
         }
+    }
 
-        boolean hasNext() {
-            return bytes.length != 0 && pos != bytes.length;
-       }
+    private static int clearEscapeFlag(int code) {
+        return code & ~GSMTable.ESCAPE_FLAG;
+    }
 
-        int next() {
-            if(!hasNext()) {
-                throw new NoSuchElementException();
-            }
-            return (int)bytes[pos++];
-        }
+    private static boolean shouldBeEscaped(int code) {
+        return (code & GSMTable.ESCAPE_FLAG) != 0;
     }
 }
@@ -26,12 +26,16 @@ import java.util.Locale;
 
 /**
  * A Java™ {@link Charset} implementation of GSM 7 Bit Encoding described in ETSI TS 123 038 (6.2.1, 6.2.1.1).
- * Note that there is no support of National Language Tables (6.2.1.2, Annex A).
+ * National Language locking shift and single shift tables (6.2.1.2, Annex A) are available through
+ * {@link #forLanguages(NationalLanguage, NationalLanguage)}.
  * <p>
  * This {@link Charset} supports encoding and decoding.
  * <p>
  * Text charset name: X-GSM7BIT
  * Name aliases: GSM, GSM7BIT
+ * <p>
+ * Charsets with national language tables have no aliases, their names are X-GSM7BIT followed by
+ * -LOCKING-&lt;language code&gt; and/or -SHIFT-&lt;language code&gt;, e.g. X-GSM7BIT-LOCKING-TR-SHIFT-TR.
  */
 public class GSMCharset extends Charset {
     private static final String  CANONICAL_NAME = "X-GSM7BIT";
@@ -44,11 +48,66 @@ public class GSMCharset extends Charset {
         + "            [~] |                                    €                          ";
 
     public static final byte GSM_EXTENDED_ESCAPE = 0x1B;
+    static final byte GSM_CARRIAGE_RETURN = 0x0D;
     static final char ESCAPE_PLACE_CHAR = '\uFFFF';   // char at pos 0x1B, should throw error when occurred in input
     static final char INVALID_CHAR = ESCAPE_PLACE_CHAR;
 
+    private final NationalLanguage lockingShift;
+    private final NationalLanguage singleShift;
+    private final GSMTable table;
+
     public GSMCharset() {
-        super(CANONICAL_NAME, ALIASES);
+        this(CANONICAL_NAME, ALIASES, NationalLanguage.DEFAULT, NationalLanguage.DEFAULT);
+    }
+
+    private GSMCharset(String canonicalName, String[] aliases,
+                       NationalLanguage lockingShift, NationalLanguage singleShift) {
+        super(canonicalName, aliases);
+        this.lockingShift = lockingShift;
+        this.singleShift = singleShift;
+        this.table = GSMTable.of(lockingShift, singleShift);
+    }
+
+    /**
+     * Create GSM 7 bit charset with national language tables.
+     * @param lockingShift language of the locking shift table, used instead of the default alphabet; languages
+     *                     without locking shift table keep the default alphabet
+     * @param singleShift language of the single shift table, used instead of the default extension table
+     * @return charset
+     */
+    public static GSMCharset forLanguages(NationalLanguage lockingShift, NationalLanguage singleShift) {
+        NationalLanguage locking = lockingShift.lockingShiftTableLanguage();
+        if (locking == NationalLanguage.DEFAULT && singleShift == NationalLanguage.DEFAULT) {
+            return new GSMCharset();
+        }
+        return new GSMCharset(NationalLanguage.charsetName(CANONICAL_NAME, locking, singleShift), null,
+                locking, singleShift);
+    }
+
+    public NationalLanguage lockingShift() {
+        return lockingShift;
+    }
+
+    public NationalLanguage singleShift() {
+        return singleShift;
+    }
+
+    /**
+     * Number of septets (and of unpacked octets) needed for a char in tables of this charset.
+     * @param ch char to examine
+     * @return 1 for a char of the locking shift table, 2 for a char of the single shift table (escape and code),
+     * 0 when the char can't be encoded
+     */
+    public int septetLength(char ch) {
+        int code = table.toCode(ch);
+        if (code == GSMTable.UNMAPPABLE) {
+            return 0;
+        }
+        return (code & GSMTable.ESCAPE_FLAG) != 0 ? 2 : 1;
+    }
+
+    GSMTable table() {
+        return table;
     }
 
     @Override
@@ -73,7 +132,7 @@ public class GSMCharset extends Charset {
 
     @Override
     public boolean contains(Charset cs) {
-        return cs instanceof GSMCharset;
+        return cs instanceof GSMCharset && ((GSMCharset) cs).table() == table();
     }
 
     @Override
@@ -28,10 +28,12 @@ public class GSMDecoder extends CharsetDecoder {
     private static final float AVG_CHARS_PER_BYTE = 1.0f;
     private static final float MAX_CHARS_PER_BYTE = 1.0f;
 
+    private final GSMTable table;
     private boolean nextCharIsExtended = false;
 
     GSMDecoder(GSMCharset cs) {
         super(cs, AVG_CHARS_PER_BYTE, MAX_CHARS_PER_BYTE);
+        table = cs.table();
     }
 
     @Override
@@ -41,36 +43,109 @@ public class GSMDecoder extends CharsetDecoder {
 
     @Override
     protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
+        if (in.hasArray() && out.hasArray()) {
+            return decodeArrayLoop(in, out);
+        }
+        return decodeBufferLoop(in, out);
+    }
+
+    /**
+     * Fast path for heap buffers: indexes backing arrays directly and updates buffer positions once.
+     */
+    private CoderResult decodeArrayLoop(ByteBuffer in, CharBuffer out) {
+        final char[] basic = table.basic();
+        final char[] extension = table.extension();
+
+        final byte[] src = in.array();
+        final int srcOffset = in.arrayOffset();
+        final int srcLimit = srcOffset + in.limit();
+        int srcPos = srcOffset + in.position();
+
+        final char[] dst = out.array();
+        final int dstOffset = out.arrayOffset();
+        final int dstLimit = dstOffset + out.limit();
+        int dstPos = dstOffset + out.position();
+
+        boolean extended = nextCharIsExtended;
+        CoderResult result = CoderResult.UNDERFLOW;
+
+        while (srcPos < srcLimit) {
+            int code = src[srcPos];
+            if (isOutOfTable(code)) {
+                result = CoderResult.unmappableForLength(1);
+                break;
+            }
+            if (extended) {
+                char decoded = extension[code];
+                if (decoded == GSMTable.NO_CHAR) {
+                    result = CoderResult.unmappableForLength(1);
+                    break;
+                }
+                if (dstPos == dstLimit) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                dst[dstPos++] = decoded;
+                extended = false;
+            } else if (isExtendedMarker(code)) {
+                extended = true;
+            } else {
+                if (dstPos == dstLimit) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                dst[dstPos++] = basic[code];
+            }
+            srcPos++;
+        }
+        nextCharIsExtended = extended;
+        in.position(srcPos - srcOffset);
+        out.position(dstPos - dstOffset);
+
+        return result;
+    }
+
+    private CoderResult decodeBufferLoop(ByteBuffer in, CharBuffer out) {
+        final char[] basic = table.basic();
+        final char[] extension = table.extension();
+
         while(in.hasRemaining()) {
             if(!out.hasRemaining()) {
                 return CoderResult.OVERFLOW;
             }
             int code = in.get();
-            if(!nextCharIsExtended && isExtendedMarker(code)) {
-                nextCharIsExtended = true;
-            } else {
-                char decoded = GSMCode2Char(code, nextCharIsExtended);
-                if(decoded == GSMCharset.INVALID_CHAR) {
-                    return CoderResult.unmappableForLength(in.position());
+            if(isOutOfTable(code)) {
+                return unmappable(in);
+            }
+            if(nextCharIsExtended) {
+                char decoded = extension[code];
+                if(decoded == GSMTable.NO_CHAR) {
+                    return unmappable(in);
                 }
                 out.put(decoded);
                 nextCharIsExtended = false;
+            } else if(isExtendedMarker(code)) {
+                nextCharIsExtended = true;
+            } else {
+                out.put(basic[code]);
             }
         }
         return CoderResult.UNDERFLOW;
     }
 
-    private static char GSMCode2Char(int code, boolean ext) {
-        try {
-            if (ext) {
-                return GSMCharset.GSM_EXT_CHARACTERS.charAt(code);
+    /**
+     * Step back to the offending byte so the caller is able to skip or replace it.
+     */
+    private static CoderResult unmappable(ByteBuffer in) {
+        in.position(in.position() - 1);
+        return CoderResult.unmappableForLength(1);
+    }
 
-            } else {
-                return GSMCharset.GSM_CHARACTERS.charAt(code);
-            }
-        } catch (IndexOutOfBoundsException whatever) {
-            return GSMCharset.INVALID_CHAR;
-        }
+    /**
+     * Bytes are signed, so any code above 0x7F is negative here.
+     */
+    private static boolean isOutOfTable(int code) {
+        return code < 0;
     }
 
     private static boolean isExtendedMarker(int code) {
@@ -19,8 +19,6 @@
 
 package threegpp.charset.gsm;
 
-import threegpp.charset.Util;
-
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.CharsetEncoder;
@@ -30,10 +28,12 @@ public class GSMEncoder extends CharsetEncoder {
     private static final float AVG_BYTES_PER_CHAR = 1.0f;
     private static final float MAX_BYTES_PER_CHAR = 2.0f;
 
+    private final GSMTable table;
     private int nextByteToSave = -1;
 
     protected GSMEncoder(GSMCharset cs) {
         super(cs, AVG_BYTES_PER_CHAR, MAX_BYTES_PER_CHAR);
+        table = cs.table();
     }
 
     @Override
@@ -54,6 +54,60 @@ public class GSMEncoder extends CharsetEncoder {
 
     @Override
     protected CoderResult encodeLoop(CharBuffer in, ByteBuffer out) {
+        if(in.hasArray() && out.hasArray()) {
+            return encodeArrayLoop(in, out);
+        }
+        return encodeBufferLoop(in, out);
+    }
+
+    /**
+     * Fast path for heap buffers: indexes backing arrays directly and updates buffer positions once.
+     */
+    private CoderResult encodeArrayLoop(CharBuffer in, ByteBuffer out) {
+        final char[] src = in.array();
+        final int srcOffset = in.arrayOffset();
+        final int srcLimit = srcOffset + in.limit();
+        int srcPos = srcOffset + in.position();
+
+        final byte[] dst = out.array();
+        final int dstOffset = out.arrayOffset();
+        final int dstLimit = dstOffset + out.limit();
+        int dstPos = dstOffset + out.position();
+
+        int pendingByte = nextByteToSave;
+        CoderResult result = CoderResult.UNDERFLOW;
+
+        while(srcPos < srcLimit) {
+            if(dstPos == dstLimit) {
+                result = CoderResult.OVERFLOW;
+                break;
+            }
+            if(pendingByte != -1) {
+                dst[dstPos++] = (byte) pendingByte;
+                pendingByte = -1;
+                continue;
+            }
+            int code = char2GSMCode(src[srcPos]);
+            if(code == GSMTable.UNMAPPABLE) {
+                result = CoderResult.unmappableForLength(1);
+                break;
+            }
+            if(shouldBeEscaped(code)) {
+                dst[dstPos++] = GSMCharset.GSM_EXTENDED_ESCAPE;
+                pendingByte = clearEscapeFlag(code);
+            } else {
+                dst[dstPos++] = (byte) code;
+            }
+            srcPos++;
+        }
+        nextByteToSave = pendingByte;
+        in.position(srcPos - srcOffset);
+        out.position(dstPos - dstOffset);
+
+        return result;
+    }
+
+    private CoderResult encodeBufferLoop(CharBuffer in, ByteBuffer out) {
         while(in.hasRemaining()) {
             if(!out.hasRemaining()) {
                 return CoderResult.OVERFLOW;
@@ -62,8 +116,9 @@ public class GSMEncoder extends CharsetEncoder {
                 saveNextByte(out);
             } else {
                 int code = char2GSMCode(in.get());
-                if (code == -1) {
-                    return CoderResult.unmappableForLength(in.position());
+                if (code == GSMTable.UNMAPPABLE) {
+                    in.position(in.position() - 1);
+                    return CoderResult.unmappableForLength(1);
                 }
                 saveNextByte(code, out);
             }
@@ -73,13 +128,13 @@ public class GSMEncoder extends CharsetEncoder {
 
     @Override
     public boolean canEncode(char c) {
-        return char2GSMCode(c) != -1;
+        return char2GSMCode(c) != GSMTable.UNMAPPABLE;
     }
 
     @Override
     public boolean canEncode(CharSequence cs) {
-        for(int i = 0; i < cs.length(); i++) {
-            if(!canEncode(cs.charAt(i))) {
+        for(int i = 0, length = cs.length(); i < length; i++) {
+            if(char2GSMCode(cs.charAt(i)) == GSMTable.UNMAPPABLE) {
                 return false;
             }
         }
@@ -87,35 +142,21 @@ public class GSMEncoder extends CharsetEncoder {
     }
 
     /**
-     * Try to directly map char to GSM code or GSM Extended code. When GSM Extended code mapping occur most significant
+     * Map char to GSM code or GSM Extended code. When GSM Extended code mapping occur most significant
      * bit of result is set as a flag.
-     * @param ch integer representation of char to examine
-     * @return GSM character code or -1 in case of unmappable character
+     * @param ch char to examine
+     * @return GSM character code or {@link GSMTable#UNMAPPABLE} in case of unmappable character
      */
-    private int char2GSMCode(int ch) {
-        if(ch == GSMCharset.ESCAPE_PLACE_CHAR) {
-            return -1;
-        }
-        int result = GSMCharset.GSM_CHARACTERS.indexOf(ch);
-        if(result == -1) {
-            result = GSMCharset.GSM_EXT_CHARACTERS.indexOf(ch);
-            if(result != -1 ) {
-                result = setEscapeFlag(result);
-            }
-        }
-        return result;
-    }
-
-    private static int setEscapeFlag(int code) {
-        return code | Util.MOST_SIGNIFICANT_BIT;
+    private int char2GSMCode(char ch) {
+        return table.toCode(ch);
     }
 
     private static int clearEscapeFlag(int code) {
-        return code & ~Util.MOST_SIGNIFICANT_BIT;
+        return code & ~GSMTable.ESCAPE_FLAG;
     }
 
     private static boolean shouldBeEscaped(int code) {
-        return (code & Util.MOST_SIGNIFICANT_BIT) != 0;
+        return (code & GSMTable.ESCAPE_FLAG) != 0;
     }
 
     private boolean alreadyHaveNextByte() {
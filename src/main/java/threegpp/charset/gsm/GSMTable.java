@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.gsm;
+
+import java.util.Arrays;
+
+import static threegpp.charset.Util.MOST_SIGNIFICANT_BIT;
+import static threegpp.charset.Util.SINGLE_BYTE_BIT_MASK;
+
+/**
+ * Precomputed lookup tables of GSM 7 bit default alphabet and its extension table (ETSI TS 123 038, 6.2.1, 6.2.1.1),
+ * or of national language locking shift and single shift tables (Annex A) used in their place. Each table has an entry
+ * for every 7 bit code, so decoding of a valid code is a single array load. Codes which have no character assigned are
+ * marked with {@link #NO_CHAR}.
+ * <p>
+ * Reverse (char to code) mapping is a two level page table over the BMP: high byte of a char selects a page, low byte
+ * selects an entry. Pages without mappable characters share a single page filled with {@link #UNMAPPABLE}.
+ */
+final class GSMTable {
+    static final int TABLE_SIZE = 0x80;
+    static final char NO_CHAR = GSMCharset.INVALID_CHAR;
+
+    /**
+     * Reverse mapping result for a character which is absent in both tables.
+     */
+    static final int UNMAPPABLE = -1;
+
+    /**
+     * Set in reverse mapping result when the code belongs to the extension table and has to be escaped.
+     */
+    static final int ESCAPE_FLAG = MOST_SIGNIFICANT_BIT;
+
+    private static final int PAGE_SHIFT = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_COUNT = (Character.MAX_VALUE + 1) >> PAGE_SHIFT;
+
+    private static final GSMTable[][] TABLES = createTables();
+
+    static final GSMTable DEFAULT = of(NationalLanguage.DEFAULT, NationalLanguage.DEFAULT);
+
+    private final char[] basic;
+    private final char[] extension;
+    private final short[][] reverse;
+
+    private GSMTable(String basicCharacters, String extensionCharacters) {
+        basic = toTable(basicCharacters);
+        extension = toTable(extensionCharacters);
+        reverse = toReverseTable(basic, extension);
+    }
+
+    /**
+     * Tables for a pair of national languages, all pairs are built once on class initialization.
+     * @param lockingShift language of the locking shift table, replaces the default alphabet
+     * @param singleShift language of the single shift table, replaces the extension table
+     * @return precomputed tables
+     */
+    static GSMTable of(NationalLanguage lockingShift, NationalLanguage singleShift) {
+        return TABLES[lockingShift.ordinal()][singleShift.ordinal()];
+    }
+
+    /**
+     * @return 128 entry table of the basic character set, indexed by GSM code
+     */
+    char[] basic() {
+        return basic;
+    }
+
+    /**
+     * @return 128 entry table of the extension character set, indexed by GSM code following the escape
+     */
+    char[] extension() {
+        return extension;
+    }
+
+    /**
+     * Map char to GSM code or GSM Extended code. When GSM Extended code mapping occur {@link #ESCAPE_FLAG} is set.
+     * @param ch char to examine
+     * @return GSM character code or {@link #UNMAPPABLE}
+     */
+    int toCode(char ch) {
+        return reverse[ch >>> PAGE_SHIFT][ch & SINGLE_BYTE_BIT_MASK];
+    }
+
+    private static GSMTable[][] createTables() {
+        NationalLanguage[] languages = NationalLanguage.values();
+        GSMTable[][] tables = new GSMTable[languages.length][languages.length];
+        for (NationalLanguage lockingShift : languages) {
+            for (NationalLanguage singleShift : languages) {
+                tables[lockingShift.ordinal()][singleShift.ordinal()] =
+                        new GSMTable(lockingShift.lockingShiftCharacters(), singleShift.singleShiftCharacters());
+            }
+        }
+        return tables;
+    }
+
+    private static char[] toTable(String characters) {
+        char[] table = new char[TABLE_SIZE];
+        for (int code = 0; code < TABLE_SIZE; code++) {
+            table[code] = code < characters.length() ? characters.charAt(code) : NO_CHAR;
+        }
+        return table;
+    }
+
+    /**
+     * Basic table takes precedence over extension table and lower code takes precedence over higher one,
+     * the same way as consecutive {@code indexOf} lookups would do.
+     */
+    private static short[][] toReverseTable(char[] basic, char[] extension) {
+        short[] unmappablePage = newPage();
+        short[][] pages = new short[PAGE_COUNT][];
+        Arrays.fill(pages, unmappablePage);
+
+        addToReverseTable(pages, unmappablePage, basic, 0);
+        addToReverseTable(pages, unmappablePage, extension, ESCAPE_FLAG);
+
+        return pages;
+    }
+
+    private static void addToReverseTable(short[][] pages, short[] unmappablePage, char[] table, int flag) {
+        for (int code = 0; code < TABLE_SIZE; code++) {
+            char ch = table[code];
+            if (ch == NO_CHAR) {
+                continue;
+            }
+            int pageIndex = ch >>> PAGE_SHIFT;
+            if (pages[pageIndex] == unmappablePage) {
+                pages[pageIndex] = newPage();
+            }
+            short[] page = pages[pageIndex];
+            int entry = ch & SINGLE_BYTE_BIT_MASK;
+            if (page[entry] == UNMAPPABLE) {
+                page[entry] = (short) (code | flag);
+            }
+        }
+    }
+
+    private static short[] newPage() {
+        short[] page = new short[PAGE_SIZE];
+        Arrays.fill(page, (short) UNMAPPABLE);
+        return page;
+    }
+}
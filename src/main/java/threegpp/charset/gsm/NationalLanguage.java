@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.gsm;
+
+/**
+ * National languages of ETSI TS 123 038 (6.2.1.2.4, Annex A) which have locking shift and/or single shift tables
+ * in this library. A locking shift table replaces the GSM 7 bit default alphabet, a single shift table replaces
+ * its extension table (characters following the escape). Both are selected independently, so any pair of languages
+ * makes a valid combination.
+ * <p>
+ * Indic languages of Annex A (National Language Identifiers 4 to 13) have no tables here yet: their identifiers are
+ * unknown to {@link #forIdentifier(int)}, so a receiver falls back to the default alphabet (ETSI TS 123 040,
+ * 9.2.3.24.15, 9.2.3.24.16). New languages only need their 128 char tables and a constant here.
+ */
+public enum NationalLanguage {
+    DEFAULT(0, "DEFAULT", GSMCharset.GSM_CHARACTERS, GSMCharset.GSM_EXT_CHARACTERS),
+    TURKISH(1, "TR", Tables.TURKISH_LOCKING_SHIFT, Tables.TURKISH_SINGLE_SHIFT),
+    SPANISH(2, "ES", null, Tables.SPANISH_SINGLE_SHIFT),
+    PORTUGUESE(3, "PT", Tables.PORTUGUESE_LOCKING_SHIFT, Tables.PORTUGUESE_SINGLE_SHIFT);
+
+    private static final NationalLanguage[] BY_IDENTIFIER = values();
+
+    private final int identifier;
+    private final String code;
+    private final String lockingShiftCharacters;
+    private final String singleShiftCharacters;
+
+    NationalLanguage(int identifier, String code, String lockingShiftCharacters, String singleShiftCharacters) {
+        this.identifier = identifier;
+        this.code = code;
+        this.lockingShiftCharacters = lockingShiftCharacters;
+        this.singleShiftCharacters = singleShiftCharacters;
+    }
+
+    /**
+     * @return National Language Identifier as used in User Data Header information elements 0x24 and 0x25
+     */
+    public int identifier() {
+        return identifier;
+    }
+
+    /**
+     * @return short code of the language used in charset names
+     */
+    public String code() {
+        return code;
+    }
+
+    /**
+     * Some languages (Spanish) define only a single shift table and use the default alphabet otherwise.
+     * @return true if the language has its own locking shift table
+     */
+    public boolean hasLockingShiftTable() {
+        return lockingShiftCharacters != null;
+    }
+
+    /**
+     * Find language by its National Language Identifier.
+     * @param identifier National Language Identifier
+     * @return language or null if the identifier is unknown or its tables are not provided
+     */
+    public static NationalLanguage forIdentifier(int identifier) {
+        if (identifier < 0 || identifier >= BY_IDENTIFIER.length) {
+            return null;
+        }
+        return BY_IDENTIFIER[identifier];
+    }
+
+    /**
+     * Name of a charset with national language tables, parts for default tables are omitted.
+     * @param defaultName name of the charset with default tables
+     * @param lockingShift language of the locking shift table
+     * @param singleShift language of the single shift table
+     * @return charset name, e.g. X-GSM7BIT-LOCKING-TR-SHIFT-TR
+     */
+    static String charsetName(String defaultName, NationalLanguage lockingShift, NationalLanguage singleShift) {
+        StringBuilder name = new StringBuilder(defaultName);
+        if (lockingShift != DEFAULT) {
+            name.append("-LOCKING-").append(lockingShift.code);
+        }
+        if (singleShift != DEFAULT) {
+            name.append("-SHIFT-").append(singleShift.code);
+        }
+        return name.toString();
+    }
+
+    /**
+     * Languages without own locking shift table use the default alphabet.
+     * @return this language if it has a locking shift table, {@link #DEFAULT} otherwise
+     */
+    NationalLanguage lockingShiftTableLanguage() {
+        return hasLockingShiftTable() ? this : DEFAULT;
+    }
+
+    String lockingShiftCharacters() {
+        return hasLockingShiftTable() ? lockingShiftCharacters : GSMCharset.GSM_CHARACTERS;
+    }
+
+    String singleShiftCharacters() {
+        return singleShiftCharacters;
+    }
+
+    /**
+     * Tables of ETSI TS 123 038 Annex A in the layout of {@link GSMCharset#GSM_CHARACTERS} and
+     * {@link GSMCharset#GSM_EXT_CHARACTERS}: index is the GSM code.
+     */
+    private static final class Tables {
+        static final String TURKISH_LOCKING_SHIFT = "@£$¥€éùıòÇ\nĞğ\rÅåΔ_ΦΓΛΩΠΨΣΘΞ\uFFFFŞşßÉ !\"#¤%&'()*+,-./0123456789:;<=>?"
+            + "İABCDEFGHIJKLMNOPQRSTUVWXYZÄÖÑÜ§çabcdefghijklmnopqrstuvwxyzäöñüà";
+
+        static final String TURKISH_SINGLE_SHIFT = "          \n         ^                   {}     \\            [~] "
+            + "|      Ğ İ         Ş               ç € ğ ı         ş            ";
+
+        static final String SPANISH_SINGLE_SHIFT = "         ç\n         ^                   {}     \\            [~] "
+            + "|Á       Í     Ó     Ú           á   €   í     ó     ú          ";
+
+        static final String PORTUGUESE_LOCKING_SHIFT = "@£$¥êéúíóç\nÔô\rÁáΔ_ªÇÀ∞^\\€Ó|\uFFFFÂâÊÉ !\"#º%&'()*+,-./0123456789:;<=>?"
+            + "ÍABCDEFGHIJKLMNOPQRSTUVWXYZÃÕÚÜ§~abcdefghijklmnopqrstuvwxyzãõ`üà";
+
+        static final String PORTUGUESE_SINGLE_SHIFT = "     ê   ç\nÔô Áá  ΦΓ^ΩΠΨΣΘ     Ê        {}     \\            [~] "
+            + "|À       Í     Ó     Ú     ÃÕ    Â   €   í     ó     ú     ãõ  â";
+    }
+}
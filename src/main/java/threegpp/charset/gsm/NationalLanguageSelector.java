@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.gsm;
+
+import java.util.Arrays;
+
+import static threegpp.charset.Util.SINGLE_BYTE_BIT_MASK;
+
+/**
+ * Chooses national language tables (ETSI TS 123 038, 6.2.1.2, Annex A) which encode a text with the fewest septets.
+ * <p>
+ * All pairs of locking shift and single shift tables are checked in one pass over the text. Every char is looked up
+ * once in a precomputed page table of bitsets: which locking shift tables and which single shift tables contain it.
+ * A char costs one septet when the locking shift table has it and two septets (escape and code) when only the single
+ * shift table has it, so the cost of a pair depends on the locking shift table alone and the single shift table only
+ * decides whether the pair is usable at all. Nothing is encoded and nothing is allocated per call.
+ * <p>
+ * When pairs give the same septet count, the pair with fewer national tables wins, the default alphabet needs no
+ * User Data Header information element. Instances keep the result of the last {@link #select(CharSequence)} call and
+ * are not thread safe.
+ */
+public final class NationalLanguageSelector {
+    private static final NationalLanguage[] LANGUAGES = NationalLanguage.values();
+    private static final int ALL_LANGUAGES = (1 << LANGUAGES.length) - 1;
+    private static final int SINGLE_SHIFT_OFFSET = 16;
+
+    private static final int PAGE_SHIFT = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_COUNT = (Character.MAX_VALUE + 1) >> PAGE_SHIFT;
+
+    /**
+     * Bit {@code i} is set when locking shift table of language {@code i} has the char,
+     * bit {@code SINGLE_SHIFT_OFFSET + i} is set when its single shift table has the char.
+     */
+    private static final int[][] MEMBERSHIP = createMembership();
+
+    private final int[] escapes = new int[LANGUAGES.length];
+    private final int[] usableSingleShifts = new int[LANGUAGES.length];
+
+    private NationalLanguage lockingShift;
+    private NationalLanguage singleShift;
+    private int septets;
+
+    /**
+     * Find tables which encode the text with the fewest septets.
+     * @param text text to examine
+     * @return true if at least one pair of tables can encode the text
+     */
+    public boolean select(CharSequence text) {
+        final int length = text.length();
+        Arrays.fill(escapes, 0);
+        Arrays.fill(usableSingleShifts, ALL_LANGUAGES);
+
+        for (int i = 0; i < length; i++) {
+            char ch = text.charAt(i);
+            int membership = MEMBERSHIP[ch >>> PAGE_SHIFT][ch & SINGLE_BYTE_BIT_MASK];
+            int lockingShifts = membership & ALL_LANGUAGES;
+            if (lockingShifts == ALL_LANGUAGES) {
+                continue;
+            }
+            int singleShifts = membership >>> SINGLE_SHIFT_OFFSET;
+            for (int language = 0; language < LANGUAGES.length; language++) {
+                if ((lockingShifts & (1 << language)) == 0) {
+                    escapes[language]++;
+                    usableSingleShifts[language] &= singleShifts;
+                }
+            }
+        }
+        return choose(length);
+    }
+
+    /**
+     * @return language of the locking shift table chosen by the last successful {@link #select(CharSequence)}
+     */
+    public NationalLanguage lockingShift() {
+        return lockingShift;
+    }
+
+    /**
+     * @return language of the single shift table chosen by the last successful {@link #select(CharSequence)}
+     */
+    public NationalLanguage singleShift() {
+        return singleShift;
+    }
+
+    /**
+     * @return number of septets of the text encoded with chosen tables, -1 if no tables can encode the text
+     */
+    public int septets() {
+        return septets;
+    }
+
+    private boolean choose(int length) {
+        lockingShift = null;
+        singleShift = null;
+        septets = -1;
+        int bestNationalTables = 0;
+
+        for (NationalLanguage locking : LANGUAGES) {
+            int cost = length + escapes[locking.ordinal()];
+            for (NationalLanguage single : LANGUAGES) {
+                if ((usableSingleShifts[locking.ordinal()] & (1 << single.ordinal())) == 0) {
+                    continue;
+                }
+                int nationalTables = nationalTables(locking, single);
+                if (septets == -1 || cost < septets || (cost == septets && nationalTables < bestNationalTables)) {
+                    lockingShift = locking;
+                    singleShift = single;
+                    septets = cost;
+                    bestNationalTables = nationalTables;
+                }
+            }
+        }
+        return septets != -1;
+    }
+
+    private static int nationalTables(NationalLanguage locking, NationalLanguage single) {
+        return (locking == NationalLanguage.DEFAULT ? 0 : 1) + (single == NationalLanguage.DEFAULT ? 0 : 1);
+    }
+
+    private static int[][] createMembership() {
+        int[] emptyPage = new int[PAGE_SIZE];
+        int[][] pages = new int[PAGE_COUNT][];
+        Arrays.fill(pages, emptyPage);
+
+        for (NationalLanguage language : LANGUAGES) {
+            int bit = 1 << language.ordinal();
+            addMembership(pages, emptyPage, GSMTable.of(language, NationalLanguage.DEFAULT).basic(), bit);
+            addMembership(pages, emptyPage, GSMTable.of(NationalLanguage.DEFAULT, language).extension(),
+                    bit << SINGLE_SHIFT_OFFSET);
+        }
+        return pages;
+    }
+
+    private static void addMembership(int[][] pages, int[] emptyPage, char[] table, int bit) {
+        for (char ch : table) {
+            if (ch == GSMTable.NO_CHAR) {
+                continue;
+            }
+            int pageIndex = ch >>> PAGE_SHIFT;
+            if (pages[pageIndex] == emptyPage) {
+                pages[pageIndex] = new int[PAGE_SIZE];
+            }
+            pages[pageIndex][ch & SINGLE_BYTE_BIT_MASK] |= bit;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.gsm;
+
+/**
+ * Bulk packing of GSM 7 bit codes (septets) into octets and back as described in ETSI TS 123 038 (6.1.2.1).
+ * <p>
+ * Every 8 septets occupy exactly 7 octets, so aligned runs are converted a block at a time through a single
+ * {@code long}. Fill bits, when requested, are zero bits placed before the first septet in the least significant
+ * bits of the first octet (as used after a User Data Header, ETSI TS 123 040, 9.2.3.24).
+ */
+public final class SeptetPacker {
+    /**
+     * Maximum number of fill bits in front of the first septet.
+     */
+    public static final int MAX_FILL_BITS = 6;
+
+    private static final int SEPTET_BITS = 7;
+    private static final int SEPTET_MASK = 0x7F;
+    private static final int BITS_PER_BYTE = 8;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int SEPTETS_PER_BLOCK = 8;
+    private static final int OCTETS_PER_BLOCK = 7;
+
+    private SeptetPacker() {
+    }
+
+    /**
+     * Calculate number of octets occupied by packed septets.
+     * @param septets number of septets
+     * @param fillBits number of fill bits in front of the first septet, 0..6
+     * @return number of octets, zero when there are no septets
+     */
+    public static int packedLength(int septets, int fillBits) {
+        checkFillBits(fillBits);
+        if (septets == 0) {
+            return 0;
+        }
+        return (fillBits + septets * SEPTET_BITS + BITS_PER_BYTE - 1) / BITS_PER_BYTE;
+    }
+
+    /**
+     * Pack septets into octets.
+     * @param src septets, only 7 least significant bits of each byte are used
+     * @param off offset of the first septet in {@code src}
+     * @param len number of septets to pack
+     * @param dst destination array
+     * @param dstOff offset of the first octet in {@code dst}
+     * @param fillBits number of zero fill bits in front of the first septet, 0..6
+     * @return number of octets written, equals to {@link #packedLength(int, int)}
+     */
+    public static int pack(byte[] src, int off, int len, byte[] dst, int dstOff, int fillBits) {
+        checkFillBits(fillBits);
+
+        int srcPos = off;
+        int srcLimit = off + len;
+        int dstPos = dstOff;
+        int carry = 0;
+        int carryBits = fillBits;
+
+        // fill bits are over after the same number of septets, octet boundary is reached there
+        int unaligned = Math.min(fillBits, len);
+        while (srcPos < off + unaligned) {
+            carry |= (src[srcPos++] & SEPTET_MASK) << carryBits;
+            carryBits += SEPTET_BITS;
+            if (carryBits >= BITS_PER_BYTE) {
+                dst[dstPos++] = (byte) carry;
+                carry >>>= BITS_PER_BYTE;
+                carryBits -= BITS_PER_BYTE;
+            }
+        }
+        while (srcLimit - srcPos >= SEPTETS_PER_BLOCK) {
+            packBlock(src, srcPos, dst, dstPos);
+            srcPos += SEPTETS_PER_BLOCK;
+            dstPos += OCTETS_PER_BLOCK;
+        }
+        while (srcPos < srcLimit) {
+            carry |= (src[srcPos++] & SEPTET_MASK) << carryBits;
+            carryBits += SEPTET_BITS;
+            if (carryBits >= BITS_PER_BYTE) {
+                dst[dstPos++] = (byte) carry;
+                carry >>>= BITS_PER_BYTE;
+                carryBits -= BITS_PER_BYTE;
+            }
+        }
+        if (carryBits > 0 && len > 0) {
+            dst[dstPos++] = (byte) carry;
+        }
+        return dstPos - dstOff;
+    }
+
+    /**
+     * Unpack septets from octets.
+     * @param src packed octets
+     * @param off offset of the first octet in {@code src}
+     * @param septets number of septets to unpack
+     * @param dst destination array, each septet occupies one byte
+     * @param dstOff offset of the first septet in {@code dst}
+     * @param fillBits number of fill bits in front of the first septet, 0..6
+     * @return number of octets read, equals to {@link #packedLength(int, int)}
+     */
+    public static int unpack(byte[] src, int off, int septets, byte[] dst, int dstOff, int fillBits) {
+        checkFillBits(fillBits);
+
+        int srcPos = off;
+        int dstPos = dstOff;
+        int dstLimit = dstOff + septets;
+        int carry = 0;
+        int carryBits = 0;
+
+        if (fillBits > 0 && septets > 0) {
+            carry = (src[srcPos++] & BYTE_MASK) >>> fillBits;
+            carryBits = BITS_PER_BYTE - fillBits;
+        }
+        int unaligned = Math.min(fillBits, septets);
+        while (dstPos < dstOff + unaligned) {
+            if (carryBits < SEPTET_BITS) {
+                carry |= (src[srcPos++] & BYTE_MASK) << carryBits;
+                carryBits += BITS_PER_BYTE;
+            }
+            dst[dstPos++] = (byte) (carry & SEPTET_MASK);
+            carry >>>= SEPTET_BITS;
+            carryBits -= SEPTET_BITS;
+        }
+        // carryBits is zero here unless the septet count is less than the number of fill bits
+        while (dstLimit - dstPos >= SEPTETS_PER_BLOCK) {
+            unpackBlock(src, srcPos, dst, dstPos);
+            srcPos += OCTETS_PER_BLOCK;
+            dstPos += SEPTETS_PER_BLOCK;
+        }
+        while (dstPos < dstLimit) {
+            if (carryBits < SEPTET_BITS) {
+                carry |= (src[srcPos++] & BYTE_MASK) << carryBits;
+                carryBits += BITS_PER_BYTE;
+            }
+            dst[dstPos++] = (byte) (carry & SEPTET_MASK);
+            carry >>>= SEPTET_BITS;
+            carryBits -= SEPTET_BITS;
+        }
+        return srcPos - off;
+    }
+
+    /**
+     * Pack 8 septets into 7 octets.
+     */
+    static void packBlock(byte[] src, int off, byte[] dst, int dstOff) {
+        long block = (long) (src[off] & SEPTET_MASK)
+                | (long) (src[off + 1] & SEPTET_MASK) << 7
+                | (long) (src[off + 2] & SEPTET_MASK) << 14
+                | (long) (src[off + 3] & SEPTET_MASK) << 21
+                | (long) (src[off + 4] & SEPTET_MASK) << 28
+                | (long) (src[off + 5] & SEPTET_MASK) << 35
+                | (long) (src[off + 6] & SEPTET_MASK) << 42
+                | (long) (src[off + 7] & SEPTET_MASK) << 49;
+
+        dst[dstOff] = (byte) block;
+        dst[dstOff + 1] = (byte) (block >>> 8);
+        dst[dstOff + 2] = (byte) (block >>> 16);
+        dst[dstOff + 3] = (byte) (block >>> 24);
+        dst[dstOff + 4] = (byte) (block >>> 32);
+        dst[dstOff + 5] = (byte) (block >>> 40);
+        dst[dstOff + 6] = (byte) (block >>> 48);
+    }
+
+    /**
+     * Unpack 7 octets into 8 septets.
+     */
+    static void unpackBlock(byte[] src, int off, byte[] dst, int dstOff) {
+        long lanes = unpackToLanes(src, off);
+
+        dst[dstOff] = (byte) lanes;
+        dst[dstOff + 1] = (byte) (lanes >>> 8);
+        dst[dstOff + 2] = (byte) (lanes >>> 16);
+        dst[dstOff + 3] = (byte) (lanes >>> 24);
+        dst[dstOff + 4] = (byte) (lanes >>> 32);
+        dst[dstOff + 5] = (byte) (lanes >>> 40);
+        dst[dstOff + 6] = (byte) (lanes >>> 48);
+        dst[dstOff + 7] = (byte) (lanes >>> 56);
+    }
+
+    /**
+     * Unpack 7 octets into 8 septets kept in byte lanes of a {@code long}: septet {@code i} occupies bits
+     * {@code 8i..8i+6}, the most significant bit of every lane is zero. Such a value can be examined lane-parallel
+     * with plain arithmetic (SIMD within a register).
+     */
+    static long unpackToLanes(byte[] src, int off) {
+        long block = (long) (src[off] & BYTE_MASK)
+                | (long) (src[off + 1] & BYTE_MASK) << 8
+                | (long) (src[off + 2] & BYTE_MASK) << 16
+                | (long) (src[off + 3] & BYTE_MASK) << 24
+                | (long) (src[off + 4] & BYTE_MASK) << 32
+                | (long) (src[off + 5] & BYTE_MASK) << 40
+                | (long) (src[off + 6] & BYTE_MASK) << 48;
+
+        return block & 0x7FL
+                | block << 1 & 0x7F00L
+                | block << 2 & 0x7F0000L
+                | block << 3 & 0x7F000000L
+                | block << 4 & 0x7F00000000L
+                | block << 5 & 0x7F0000000000L
+                | block << 6 & 0x7F000000000000L
+                | block << 7 & 0x7F00000000000000L;
+    }
+
+    static void checkFillBits(int fillBits) {
+        if (fillBits < 0 || fillBits > MAX_FILL_BITS) {
+            throw new IllegalArgumentException("Fill bits out of range 0.." + MAX_FILL_BITS + ": " + fillBits);
+        }
+    }
+}
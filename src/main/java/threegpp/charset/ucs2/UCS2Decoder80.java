@@ -19,159 +19,200 @@
 
 package threegpp.charset.ucs2;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 
 import static threegpp.charset.Util.keepUnsigned;
 
+/**
+ * Decoder of UCS2 with tag 0x80: the tag followed by big-endian 16 bit code units which are passed through as is.
+ * When input is supplied in parts of odd length the only state kept between calls is a single pending high byte.
+ * <p>
+ * Surrogates have to form pairs. A high surrogate is consumed together with its low surrogate only: when the next
+ * unit has not arrived yet, the high surrogate is left in the input, as {@link java.nio.charset.CharsetDecoder}
+ * contract allows, and the caller has to supply it again with more input. An unpaired surrogate is malformed input
+ * starting at the current input position.
+ */
 public class UCS2Decoder80 extends CharsetDecoder {
 
     private static final float AVG_CHARS_PER_BYTE = 0.5f;
     private static final float MAX_CHARS_PER_BYTE = 1.0f;
 
+    private static final int NO_PENDING_BYTE = -1;
+    private static final int BITS_PER_BYTE = 8;
+    private static final int UNIT_LENGTH = 2;
+    private static final int PAIR_LENGTH = 2 * UNIT_LENGTH;
+
     private boolean inInitialState = true;
-    private CharsetDecoder decoder = UCS2Charset80.underlyingCharset.newDecoder();
-    private InputStorage inputStorage;
+    private int pendingHighByte = NO_PENDING_BYTE;
 
     UCS2Decoder80(UCS2Charset80 cs) {
         super(cs, AVG_CHARS_PER_BYTE, MAX_CHARS_PER_BYTE);
     }
 
+    /**
+     * A pending high byte at the end of input is a truncated code unit. Flush is out of reach of
+     * malformed input action processing of {@link CharsetDecoder}, so the action is applied here.
+     */
     @Override
     protected CoderResult implFlush(CharBuffer out) {
-        if (directDecodingInProgress()) {
-            return finalizeAndFlushDecoder(out);
+        if (pendingHighByte == NO_PENDING_BYTE) {
+            return CoderResult.UNDERFLOW;
         }
-        if (!inputStorage.isClosedForInput()) {
-            inputStorage.closeForInput();
+        CodingErrorAction action = malformedInputAction();
+        if (action == CodingErrorAction.REPORT) {
+            return CoderResult.malformedForLength(1);
         }
-        if (!inputStorage.buffer().hasRemaining()) {
-            return finalizeAndFlushDecoder(out);
+        if (action == CodingErrorAction.REPLACE) {
+            if (out.remaining() < replacement().length()) {
+                return CoderResult.OVERFLOW;
+            }
+            out.put(replacement());
         }
-        return decoder.decode(inputStorage.buffer(), out, false);
+        pendingHighByte = NO_PENDING_BYTE;
+        return CoderResult.UNDERFLOW;
     }
 
     @Override
     protected void implReset() {
-        decoder.reset();
         inInitialState = true;
-        inputStorage = null;
+        pendingHighByte = NO_PENDING_BYTE;
     }
 
     @Override
     protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
-        if(inInitialState) {
-            if(!isTagValid(in.get())) {
-                return CoderResult.malformedForLength(in.position());
+        if (inInitialState) {
+            if (!in.hasRemaining()) {
+                return CoderResult.UNDERFLOW;
             }
             inInitialState = false;
+            if (!isTagValid(in.get(in.position()))) {
+                return CoderResult.malformedForLength(1);
+            }
+            in.position(in.position() + 1);
         }
-        if (directDecodingInProgress() && isCurrentInputCorrect(in)) {
-            return decoder.decode(in, out, false);
+        if (pendingHighByte != NO_PENDING_BYTE && in.hasRemaining()) {
+            CoderResult result = decodePendingUnit(in, out);
+            if (result != null) {
+                return result;
+            }
+        }
+        final boolean arrayBacked = in.hasArray() && out.hasArray();
+        while (in.remaining() >= UNIT_LENGTH) {
+            if (arrayBacked) {
+                if (decodeArrayLoop(in, out).isOverflow()) {
+                    return CoderResult.OVERFLOW;
+                }
+                if (in.remaining() < UNIT_LENGTH) {
+                    break;
+                }
+            }
+            final int position = in.position();
+            char unit = toChar(in.get(position), in.get(position + 1));
+            if (Character.isHighSurrogate(unit)) {
+                if (in.remaining() < PAIR_LENGTH) {
+                    return CoderResult.UNDERFLOW;
+                }
+                char low = toChar(in.get(position + 2), in.get(position + 3));
+                if (!Character.isLowSurrogate(low)) {
+                    return CoderResult.malformedForLength(UNIT_LENGTH);
+                }
+                if (out.remaining() < 2) {
+                    return CoderResult.OVERFLOW;
+                }
+                out.put(unit).put(low);
+                in.position(position + PAIR_LENGTH);
+            } else if (Character.isLowSurrogate(unit)) {
+                return CoderResult.malformedForLength(UNIT_LENGTH);
+            } else {
+                if (!out.hasRemaining()) {
+                    return CoderResult.OVERFLOW;
+                }
+                out.put(unit);
+                in.position(position + UNIT_LENGTH);
+            }
+        }
+        if (in.hasRemaining()) {
+            pendingHighByte = keepUnsigned(in.get());
         }
-        initInputStorageIfEmpty(in.remaining());
-        collectBytes(in);
-
         return CoderResult.UNDERFLOW;
     }
 
-    private void finalizeDecoder() {
-        decoder.decode(ByteBuffer.allocate(0), CharBuffer.allocate(0), true);
-    }
-
-    private static boolean isTagValid(byte tag) {
-        return keepUnsigned(tag) == UCS2Charset80.CHARSET_TAG;
-    }
-
-    /**
-     * There are two kinds of decoding:
-     * 1. Direct (no intermediate data saved). Occurs when even length input data supplied.
-     * 2. Decoding with collecting all available input data. Occurs when odd length data supplied. That data can break
-     *    underlying decoder.
-     */
-    private boolean directDecodingInProgress() {
-        return null == inputStorage;
-    }
-
     /**
-     * For underlying charset decoder input is correct only when its length is even.
+     * Complete the unit started by the pending high byte. An unpaired surrogate there is malformed input of the one
+     * byte it has in the input, the pending byte is dropped with it.
+     * @return null if the unit is decoded, the result to return otherwise
      */
-    private static boolean isCurrentInputCorrect(ByteBuffer in) {
-        return in.remaining() % 2 == 0;
-    }
-
-    private void collectBytes(ByteBuffer in) {
-        if (in.hasArray()) {
-            collectBytesFromArrayBackedBuffer(in);
+    private CoderResult decodePendingUnit(ByteBuffer in, CharBuffer out) {
+        final int position = in.position();
+        char unit = toChar(pendingHighByte, in.get(position));
+        if (Character.isHighSurrogate(unit)) {
+            if (in.remaining() < 1 + UNIT_LENGTH) {
+                return CoderResult.UNDERFLOW;
+            }
+            char low = toChar(in.get(position + 1), in.get(position + 2));
+            if (!Character.isLowSurrogate(low)) {
+                pendingHighByte = NO_PENDING_BYTE;
+                return CoderResult.malformedForLength(1);
+            }
+            if (out.remaining() < 2) {
+                return CoderResult.OVERFLOW;
+            }
+            out.put(unit).put(low);
+            in.position(position + 1 + UNIT_LENGTH);
+        } else if (Character.isLowSurrogate(unit)) {
+            pendingHighByte = NO_PENDING_BYTE;
+            return CoderResult.malformedForLength(1);
         } else {
-            collectBytesFromBuffer(in);
+            if (!out.hasRemaining()) {
+                return CoderResult.OVERFLOW;
+            }
+            out.put(unit);
+            in.position(position + 1);
         }
+        pendingHighByte = NO_PENDING_BYTE;
+        return null;
     }
 
-    private void collectBytesFromArrayBackedBuffer(ByteBuffer in) {
-        inputStorage.write(in.array(), in.position(), in.remaining());
-        in.position(in.limit());
-    }
-
-    private void collectBytesFromBuffer(ByteBuffer in) {
-        while(in.hasRemaining()) {
-            inputStorage.write(in.get());
+    /**
+     * Fast path for heap buffers: indexes backing arrays directly and updates buffer positions once.
+     * Stops at a surrogate, which goes through the unit by unit path, or with a single byte left.
+     */
+    private static CoderResult decodeArrayLoop(ByteBuffer in, CharBuffer out) {
+        final byte[] src = in.array();
+        final int srcOffset = in.arrayOffset();
+        int srcPos = srcOffset + in.position();
+
+        final char[] dst = out.array();
+        final int dstOffset = out.arrayOffset();
+        int dstPos = dstOffset + out.position();
+
+        final int pairs = in.remaining() / UNIT_LENGTH;
+        final int room = out.remaining();
+        final int dstLimit = dstPos + Math.min(pairs, room);
+        while (dstPos < dstLimit) {
+            char unit = (char) (src[srcPos] << BITS_PER_BYTE | src[srcPos + 1] & 0xFF);
+            if (Character.isSurrogate(unit)) {
+                break;
+            }
+            dst[dstPos++] = unit;
+            srcPos += UNIT_LENGTH;
         }
-    }
+        int decoded = dstPos - dstOffset - out.position();
+        in.position(srcPos - srcOffset);
+        out.position(dstPos - dstOffset);
 
-    private void initInputStorageIfEmpty(int initialSize) {
-        if (null == inputStorage) {
-            inputStorage = new InputStorage(initialSize);
-        }
+        return decoded == room && decoded < pairs ? CoderResult.OVERFLOW : CoderResult.UNDERFLOW;
     }
 
-    private CoderResult finalizeAndFlushDecoder(CharBuffer out) {
-        finalizeDecoder();
-        return decoder.flush(out);
+    private static char toChar(int highByte, int lowByte) {
+        return (char) (highByte << BITS_PER_BYTE | keepUnsigned(lowByte));
     }
 
-    private static class InputStorage {
-        private ByteArrayOutputStream storage;
-        private ByteBuffer result;
-
-        InputStorage(int initialSize) {
-            storage = new ByteArrayOutputStream(initialSize);
-        }
-
-        void write(int b) {
-            if (isClosedForInput()) {
-                throw new IllegalStateException();
-            }
-            storage.write(b);
-        }
-
-        void write(byte[] b, int off, int len) {
-            if (isClosedForInput()) {
-                throw new IllegalStateException();
-            }
-            storage.write(b, off, len);
-        }
-
-        void closeForInput() {
-            if (isClosedForInput()) {
-                throw new IllegalStateException();
-            }
-            result = ByteBuffer.wrap(storage.toByteArray());
-        }
-
-        boolean isClosedForInput() {
-            return null != result;
-        }
-
-        ByteBuffer buffer() {
-            if (!isClosedForInput()) {
-                throw new IllegalStateException();
-            }
-            return result;
-        }
+    private static boolean isTagValid(byte tag) {
+        return keepUnsigned(tag) == UCS2Charset80.CHARSET_TAG;
     }
-
 }
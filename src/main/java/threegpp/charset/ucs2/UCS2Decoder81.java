@@ -90,7 +90,7 @@ public class UCS2Decoder81 extends CharsetDecoder {
 
     private static boolean isInputBufferInitiallyValid(ByteBuffer in) {
         if(in.limit() >= MIN_VALID_INPUT_BUFFER_LENGTH && in.get() == (byte) UCS2Charset81.CHARSET_TAG) {
-            int length = in.get();
+            int length = keepUnsigned(in.get());
             in.position(in.position() - 1);
 
             return length >= MIN_CHAR_COUNT;
@@ -99,7 +99,7 @@ public class UCS2Decoder81 extends CharsetDecoder {
     }
 
     private static int getCodePageAsInt(byte codePage) {
-        return (int)codePage << UCS2Charset81.CODE_PAGE_OFFSET;
+        return keepUnsigned(codePage) << UCS2Charset81.CODE_PAGE_OFFSET;
     }
 
     private boolean isHalfPageOffsetRequired(int value) {
@@ -128,7 +128,7 @@ public class UCS2Decoder81 extends CharsetDecoder {
     }
 
     private void setUpDecoderAdvancingBuffer(ByteBuffer in) {
-        numCharactersExpected = in.get();
+        numCharactersExpected = keepUnsigned(in.get());
         halfPagePointer = getCodePageAsInt(in.get());
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.ucs2;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import static threegpp.charset.Util.MOST_SIGNIFICANT_BIT;
+import static threegpp.charset.Util.keepUnsigned;
+
+/**
+ * Decoder of UCS2 with tag 0x82. The header may arrive split between calls. Exactly the number of chars from
+ * the header is decoded, bytes after the text (the unused part of a fixed size record) are skipped.
+ */
+public class UCS2Decoder82 extends CharsetDecoder {
+    private static final float MAX_CHARS_PER_BYTE = 1.0f;
+    private static final float AVERAGE_CHARS_PER_BYTE = 1.0f;
+
+    private static final int TAG_POSITION = 0;
+    private static final int TEXT_LENGTH_POSITION = 1;
+    private static final int BASE_POINTER_HIGH_POSITION = 2;
+    private static final int HEADER_LENGTH = 4;
+
+    private int headerBytesRead = 0;
+    private int numCharactersExpected = 0;
+    private int charNum = 0;
+    private int basePointer = 0;
+
+    UCS2Decoder82(UCS2Charset82 cs) {
+        super(cs, AVERAGE_CHARS_PER_BYTE, MAX_CHARS_PER_BYTE);
+    }
+
+    @Override
+    protected void implReset() {
+        headerBytesRead = 0;
+        numCharactersExpected = 0;
+        charNum = 0;
+        basePointer = 0;
+    }
+
+    @Override
+    protected CoderResult implFlush(CharBuffer out) {
+        if (headerBytesRead == 0 || isComplete()) {
+            return CoderResult.UNDERFLOW;
+        }
+        CodingErrorAction action = malformedInputAction();
+        if (action == CodingErrorAction.REPORT) {
+            return CoderResult.malformedForLength(1);
+        }
+        if (action == CodingErrorAction.REPLACE) {
+            if (out.remaining() < replacement().length()) {
+                return CoderResult.OVERFLOW;
+            }
+            out.put(replacement());
+        }
+        headerBytesRead = HEADER_LENGTH;
+        charNum = numCharactersExpected;
+        return CoderResult.UNDERFLOW;
+    }
+
+    @Override
+    protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
+        while (headerBytesRead < HEADER_LENGTH) {
+            if (!in.hasRemaining()) {
+                return CoderResult.UNDERFLOW;
+            }
+            int value = keepUnsigned(in.get(in.position()));
+            if (headerBytesRead == TAG_POSITION && value != UCS2Charset82.CHARSET_TAG) {
+                return CoderResult.malformedForLength(1);
+            }
+            readHeaderByte(value);
+            in.position(in.position() + 1);
+        }
+
+        while (charNum < numCharactersExpected && in.hasRemaining()) {
+            if (!out.hasRemaining()) {
+                return CoderResult.OVERFLOW;
+            }
+            out.put(inputByteToChar(in.get()));
+            charNum++;
+        }
+        if (isComplete()) {
+            in.position(in.limit());
+        }
+        return CoderResult.UNDERFLOW;
+    }
+
+    private void readHeaderByte(int value) {
+        if (headerBytesRead == TEXT_LENGTH_POSITION) {
+            numCharactersExpected = value;
+        } else if (headerBytesRead == BASE_POINTER_HIGH_POSITION) {
+            basePointer = value << UCS2Charset82.BASE_POINTER_OFFSET;
+        } else if (headerBytesRead > BASE_POINTER_HIGH_POSITION) {
+            basePointer |= value;
+        }
+        headerBytesRead++;
+    }
+
+    private boolean isComplete() {
+        return headerBytesRead == HEADER_LENGTH && charNum == numCharactersExpected;
+    }
+
+    private char inputByteToChar(byte value) {
+        int unsignedValue = keepUnsigned(value);
+        if ((unsignedValue & MOST_SIGNIFICANT_BIT) == 0) {
+            return (char) unsignedValue;
+        }
+        return (char) (basePointer + (unsignedValue ^ MOST_SIGNIFICANT_BIT));
+    }
+}
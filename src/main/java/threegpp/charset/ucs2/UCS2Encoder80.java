@@ -21,51 +21,61 @@ package threegpp.charset.ucs2;
 
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
-import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 
+/**
+ * Encoder of UCS2 with tag 0x80: the tag followed by big-endian 16 bit code units. UCS2 has no supplementary
+ * planes, so a surrogate pair is unmappable and a lone surrogate is malformed input.
+ */
 public class UCS2Encoder80 extends CharsetEncoder {
 
     private static final float AVG_BYTES_PER_CHAR = 2.0f;
     private static final float MAX_BYTES_PER_CHAR = 3.0f;
+    private static final byte[] REPLACEMENT = {0x00, '?'};
+
+    private static final int BITS_PER_BYTE = 8;
+    private static final int BYTES_PER_CHAR = 2;
 
-    private CharsetEncoder encoder = UCS2Charset80.underlyingCharset.newEncoder();
     private boolean inInitialState = true;
 
     UCS2Encoder80(UCS2Charset80 cs) {
-        super(cs, AVG_BYTES_PER_CHAR, MAX_BYTES_PER_CHAR);
-    }
-
-    @Override
-    protected CoderResult implFlush(ByteBuffer out) {
-        finalizeEncoder();
-        return encoder.flush(out);
+        super(cs, AVG_BYTES_PER_CHAR, MAX_BYTES_PER_CHAR, REPLACEMENT);
     }
 
     @Override
     protected void implReset() {
-        encoder.reset();
         inInitialState = true;
     }
 
     @Override
     public boolean canEncode(char c) {
-        return encoder.canEncode(c);
+        return !Character.isSurrogate(c);
     }
 
     @Override
     public boolean canEncode(CharSequence cs) {
-        return encoder.canEncode(cs);
+        for (int i = 0, length = cs.length(); i < length; i++) {
+            if (Character.isSurrogate(cs.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     protected CoderResult encodeLoop(CharBuffer in, ByteBuffer out) {
         if(inInitialState) {
+            if (!out.hasRemaining()) {
+                return CoderResult.OVERFLOW;
+            }
             out.put((byte)UCS2Charset80.CHARSET_TAG);
             inInitialState = false;
         }
-        return encoder.encode(in, out, false);
+        if (in.hasArray() && out.hasArray()) {
+            return encodeArrayLoop(in, out);
+        }
+        return encodeBufferLoop(in, out);
     }
 
     @Override
@@ -73,9 +83,73 @@ public class UCS2Encoder80 extends CharsetEncoder {
         return true;
     }
 
-    private void finalizeEncoder() {
-        CharBuffer emptyIn = CharBuffer.wrap("");
-        ByteBuffer out = ByteBuffer.allocate(0);
-        encoder.encode(emptyIn, out, true);
+    /**
+     * Fast path for heap buffers: copies chars into the backing byte array as big-endian pairs and
+     * updates buffer positions once.
+     */
+    private static CoderResult encodeArrayLoop(CharBuffer in, ByteBuffer out) {
+        final char[] src = in.array();
+        final int srcOffset = in.arrayOffset();
+        int srcPos = srcOffset + in.position();
+
+        final byte[] dst = out.array();
+        final int dstOffset = out.arrayOffset();
+        int dstPos = dstOffset + out.position();
+
+        int chars = in.remaining();
+        CoderResult result = CoderResult.UNDERFLOW;
+        if (chars > out.remaining() / BYTES_PER_CHAR) {
+            chars = out.remaining() / BYTES_PER_CHAR;
+            result = CoderResult.OVERFLOW;
+        }
+        final int srcLimit = srcPos + chars;
+        while (srcPos < srcLimit) {
+            char ch = src[srcPos];
+            if (Character.isSurrogate(ch)) {
+                result = null;
+                break;
+            }
+            dst[dstPos] = (byte) (ch >> BITS_PER_BYTE);
+            dst[dstPos + 1] = (byte) ch;
+            dstPos += BYTES_PER_CHAR;
+            srcPos++;
+        }
+        in.position(srcPos - srcOffset);
+        out.position(dstPos - dstOffset);
+
+        return null == result ? surrogateResult(in) : result;
+    }
+
+    private static CoderResult encodeBufferLoop(CharBuffer in, ByteBuffer out) {
+        while (in.hasRemaining()) {
+            char ch = in.get(in.position());
+            if (Character.isSurrogate(ch)) {
+                return surrogateResult(in);
+            }
+            if (out.remaining() < BYTES_PER_CHAR) {
+                return CoderResult.OVERFLOW;
+            }
+            char next = in.get();
+            out.put((byte) (next >> BITS_PER_BYTE));
+            out.put((byte) next);
+        }
+        return CoderResult.UNDERFLOW;
+    }
+
+    /**
+     * Classify a surrogate at the current input position, the surrogate is not consumed.
+     */
+    private static CoderResult surrogateResult(CharBuffer in) {
+        int position = in.position();
+        if (Character.isHighSurrogate(in.get(position))) {
+            if (in.remaining() < 2) {
+                // the low surrogate may come with the next part of input
+                return CoderResult.UNDERFLOW;
+            }
+            if (Character.isLowSurrogate(in.get(position + 1))) {
+                return CoderResult.unmappableForLength(2);
+            }
+        }
+        return CoderResult.malformedForLength(1);
     }
 }
@@ -24,8 +24,6 @@ import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
-import java.util.HashSet;
-import java.util.Set;
 
 import static threegpp.charset.Util.MOST_SIGNIFICANT_BIT;
 import static threegpp.charset.Util.SINGLE_BYTE_BIT_MASK;
@@ -37,6 +35,7 @@ public class UCS2Encoder81 extends CharsetEncoder {
     private static final int CHAR_CODE_MASK = SINGLE_BYTE_BIT_MASK;
     private static final int INVALID_CHARACTER = -1;
     private static final int CODE_PAGE_MASK = 0x7F80;
+    private static final int MAX_CHAR = 0x7FFF;  // an 8 bit half page pointer does not reach higher chars
 
     private int numCharacters = 0;
     private int halfPagePointer = 0;
@@ -97,18 +96,24 @@ public class UCS2Encoder81 extends CharsetEncoder {
 
     @Override
     public boolean canEncode(char c) {
-        return true;
+        return c <= MAX_CHAR;
     }
 
     @Override
     public boolean canEncode(CharSequence cs) {
-        Set<Integer> pages = new HashSet<>();
-        int length = cs.length();
-        int maxCodePages = 2;
-        for (int i = 0; i < length; i++) {
-            pages.add(getCharHalfPage(cs.charAt(i)));
-            int size = pages.size();
-            if(size > maxCodePages || (size == maxCodePages && !pages.contains(0))) {
+        int textHalfPage = 0;
+        for (int i = 0, length = cs.length(); i < length; i++) {
+            char ch = cs.charAt(i);
+            if (ch > MAX_CHAR) {
+                return false;
+            }
+            int charHalfPage = getCharHalfPage(ch);
+            if (charHalfPage == 0) {
+                continue;
+            }
+            if (textHalfPage == 0) {
+                textHalfPage = charHalfPage;
+            } else if (textHalfPage != charHalfPage) {
                 return false;
             }
         }
@@ -116,6 +121,9 @@ public class UCS2Encoder81 extends CharsetEncoder {
     }
 
     private int encodeCharacter(int intChar) {
+        if (intChar > MAX_CHAR) {
+            return INVALID_CHARACTER;
+        }
         int charHalfPagePointer = getCharHalfPage(intChar);
         int charCode = getCharCode(intChar);
 
@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.ucs2;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import static threegpp.charset.Util.MOST_SIGNIFICANT_BIT;
+import static threegpp.charset.Util.SINGLE_BYTE_BIT_MASK;
+
+/**
+ * Encoder of UCS2 with tag 0x82: the tag, number of chars, 16 bit base pointer and one byte per char. Chars below
+ * 0x80 are written as is, other chars as an offset from the base pointer with the most significant bit set.
+ * <p>
+ * All chars above 0x7F of a text have to be within 128 chars from each other, a char which would widen the range
+ * beyond that is unmappable. Chars are kept until {@link #flush(ByteBuffer)}, which chooses the base pointer (the
+ * lowest kept char above 0x7F) and writes the header with the final number of chars and then the chars, into as many
+ * buffers as it takes. So the result does not depend on how input is split between calls.
+ * <p>
+ * Replacement of unmappable characters is done here, not by {@link CharsetEncoder}, so replacement bytes are
+ * counted in the header. Chars beyond 255 can't be stored, they are reported or, with any other action, dropped.
+ */
+public class UCS2Encoder82 extends CharsetEncoder {
+    private static final float AVERAGE_BYTES_PER_CHAR = 1.016f;
+    private static final float MAX_BYTES_PER_CHAR = 5.0f;
+    private static final int MAX_TEXT_LENGTH = 0xFF;
+    private static final int MAX_OFFSET = 0x7F;
+    private static final int HEADER_LENGTH = 4;
+    private static final int NO_BASE_POINTER = -1;
+    // kept replacement bytes are marked above any char
+    private static final int REPLACEMENT_BYTE = 0x10000;
+
+    private final int[] text = new int[MAX_TEXT_LENGTH];
+    private int textLength = 0;
+    private int minChar = NO_BASE_POINTER;
+    private int maxChar = NO_BASE_POINTER;
+    private int flushed = 0;
+    private boolean onStart = true;
+
+    UCS2Encoder82(UCS2Charset82 cs) {
+        super(cs, AVERAGE_BYTES_PER_CHAR, MAX_BYTES_PER_CHAR);
+    }
+
+    /**
+     * Write the header and the kept chars, continuing where the previous call stopped on overflow.
+     */
+    @Override
+    protected CoderResult implFlush(ByteBuffer out) {
+        if (onStart) {
+            return CoderResult.UNDERFLOW;
+        }
+        while (flushed < HEADER_LENGTH + textLength) {
+            if (!out.hasRemaining()) {
+                return CoderResult.OVERFLOW;
+            }
+            out.put(flushed < HEADER_LENGTH ? headerByte(flushed) : textByte(text[flushed - HEADER_LENGTH]));
+            flushed++;
+        }
+        return CoderResult.UNDERFLOW;
+    }
+
+    @Override
+    protected void implReset() {
+        textLength = 0;
+        minChar = NO_BASE_POINTER;
+        maxChar = NO_BASE_POINTER;
+        flushed = 0;
+        onStart = true;
+    }
+
+    @Override
+    protected CoderResult encodeLoop(CharBuffer in, ByteBuffer out) {
+        onStart = false;
+        while (in.hasRemaining()) {
+            char ch = in.get(in.position());
+            if (!keep(ch)) {
+                CodingErrorAction action = unmappableCharacterAction();
+                if (action == CodingErrorAction.REPORT) {
+                    return CoderResult.unmappableForLength(1);
+                }
+                if (action == CodingErrorAction.REPLACE) {
+                    putReplacement();
+                }
+            }
+            in.position(in.position() + 1);
+        }
+        return CoderResult.UNDERFLOW;
+    }
+
+    @Override
+    public boolean isLegalReplacement(byte[] replacement) {
+        return true;
+    }
+
+    @Override
+    public boolean canEncode(char c) {
+        return !Character.isSurrogate(c);
+    }
+
+    @Override
+    public boolean canEncode(CharSequence cs) {
+        int length = cs.length();
+        if (length > MAX_TEXT_LENGTH) {
+            return false;
+        }
+        int min = Character.MAX_VALUE;
+        int max = 0;
+        for (int i = 0; i < length; i++) {
+            char ch = cs.charAt(i);
+            if (ch < MOST_SIGNIFICANT_BIT) {
+                continue;
+            }
+            if (Character.isSurrogate(ch)) {
+                return false;
+            }
+            min = Math.min(min, ch);
+            max = Math.max(max, ch);
+            if (max - min > MAX_OFFSET) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Keep a char if there is room for it and it stays within 128 chars from other kept chars above 0x7F.
+     * @return false if the char is unmappable
+     */
+    private boolean keep(char ch) {
+        if (textLength == MAX_TEXT_LENGTH || Character.isSurrogate(ch)) {
+            return false;
+        }
+        if (ch >= MOST_SIGNIFICANT_BIT) {
+            int min = minChar == NO_BASE_POINTER ? ch : Math.min(minChar, ch);
+            int max = Math.max(maxChar, ch);
+            if (max - min > MAX_OFFSET) {
+                return false;
+            }
+            minChar = min;
+            maxChar = max;
+        }
+        text[textLength++] = ch;
+        return true;
+    }
+
+    private void putReplacement() {
+        byte[] replacement = replacement();
+        int length = Math.min(replacement.length, MAX_TEXT_LENGTH - textLength);
+        for (int i = 0; i < length; i++) {
+            text[textLength++] = REPLACEMENT_BYTE | replacement[i] & SINGLE_BYTE_BIT_MASK;
+        }
+    }
+
+    private byte textByte(int kept) {
+        if (kept >= REPLACEMENT_BYTE || kept < MOST_SIGNIFICANT_BIT) {
+            return (byte) kept;
+        }
+        return (byte) (kept - minChar | MOST_SIGNIFICANT_BIT);
+    }
+
+    private byte headerByte(int index) {
+        int pointer = minChar == NO_BASE_POINTER ? 0 : minChar;
+        switch (index) {
+            case 0:
+                return (byte) UCS2Charset82.CHARSET_TAG;
+            case 1:
+                return (byte) textLength;
+            case 2:
+                return (byte) (pointer >> UCS2Charset82.BASE_POINTER_OFFSET);
+            default:
+                return (byte) (pointer & SINGLE_BYTE_BIT_MASK);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import org.junit.Test;
+import threegpp.charset.AlphaIdentifierPlanner.Encoding;
+import threegpp.charset.gsm.GSMCharset;
+import threegpp.charset.ucs2.UCS2Charset80;
+import threegpp.charset.ucs2.UCS2Charset81;
+
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AlphaIdentifierPlannerTest {
+
+    private final AlphaIdentifierPlanner planner = new AlphaIdentifierPlanner();
+
+    @Test
+    public void testGsmText() {
+        checkPlan(Encoding.GSM, 5, "Hello");
+        checkPlan(Encoding.GSM, 8, "{Home}");
+    }
+
+    @Test
+    public void testEmptyText() {
+        checkPlan(Encoding.GSM, 0, "");
+    }
+
+    @Test
+    public void testHalfPageText() {
+        checkPlan(Encoding.UCS2_81, EncodedText.UCS2_81.getBytes().length, EncodedText.UCS2_81.getText());
+        // Cyrillic letters share half page 0x0400
+        checkPlan(Encoding.UCS2_81, 3 + 6, "\u041F\u0440\u0438\u0432\u0435\u0442");
+    }
+
+    @Test
+    public void testGsmLosesToHalfPageOnManyEscapes() {
+        // 5 escaped chars take 10 bytes in GSM
+        checkPlan(Encoding.UCS2_81, 3 + 5, "{}[]~");
+        checkPlan(Encoding.GSM, 4, "a{b");
+    }
+
+    @Test
+    public void testBasePointerText() {
+        // 0x047F and 0x0480 are in different half pages but within 128 chars from each other
+        checkPlan(Encoding.UCS2_82, 4 + 3, "\u047Fa\u0480");
+        // 0x8041 is out of reach of a half page pointer
+        checkPlan(Encoding.UCS2_82, 4 + 4, "\u8041\u8042\u8043\u8044");
+    }
+
+    @Test
+    public void testWideText() {
+        checkPlan(Encoding.UCS2_80, 1 + 2 * 2, "\u0410\u4E2D");
+        checkPlan(Encoding.UCS2_80, EncodedText.UCS2_80.getBytes().length, EncodedText.UCS2_80.getText());
+    }
+
+    @Test
+    public void testShortWideTextPrefersUCS2x80() {
+        // 1 + 2 is shorter than 3 + 1
+        checkPlan(Encoding.UCS2_80, 1 + 2, "\u0410");
+    }
+
+    @Test
+    public void testLongTextHasNoPointerEncodings() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i <= AlphaIdentifierPlanner.MAX_POINTER_TEXT_LENGTH; i++) {
+            text.append('\u0410');
+        }
+        checkPlan(Encoding.UCS2_80, 1 + 2 * text.length(), text);
+    }
+
+    @Test
+    public void testSurrogates() {
+        assertNull(planner.plan("A\uD83D\uDE00"));
+        assertEquals(-1, planner.encodedLength());
+        assertNull(planner.encoding());
+    }
+
+    @Test
+    public void testLengthsMatchEncoders() {
+        String [] texts = {"Hello", "\u041F\u0440\u0438\u0432\u0435\u0442", "\u0410\u4E2D"};
+        Encoding [] encodings = {Encoding.GSM, Encoding.UCS2_81, Encoding.UCS2_80};
+        Charset [] charsets = {new GSMCharset(), new UCS2Charset81(), new UCS2Charset80()};
+        for (int i = 0; i < texts.length; i++) {
+            checkPlan(encodings[i], TelecomCodecs.encode(texts[i], charsets[i]).length, texts[i]);
+        }
+    }
+
+    private void checkPlan(Encoding expected, int expectedLength, CharSequence text) {
+        assertEquals(expected, planner.plan(text));
+        assertEquals(expected, planner.encoding());
+        assertEquals(expectedLength, planner.encodedLength());
+    }
+}
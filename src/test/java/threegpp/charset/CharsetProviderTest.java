@@ -26,6 +26,7 @@ import threegpp.charset.gsm.GSM7BitPackedCharset;
 import threegpp.charset.gsm.GSMCharset;
 import threegpp.charset.ucs2.UCS2Charset80;
 import threegpp.charset.ucs2.UCS2Charset81;
+import threegpp.charset.ucs2.UCS2Charset82;
 
 import java.nio.charset.Charset;
 import java.util.HashSet;
@@ -37,7 +38,7 @@ import static org.junit.Assert.*;
 public class CharsetProviderTest {
     private static Charset[] charsets = {
             new GSM7BitPackedCharset(), new GSMCharset(), new UCS2Charset80(),
-            new UCS2Charset81(), new TelecomCharset()
+            new UCS2Charset81(), new UCS2Charset82(), new TelecomCharset()
     };
 
     private CharsetProvider provider;
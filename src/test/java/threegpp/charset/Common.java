@@ -19,6 +19,7 @@
 
 package threegpp.charset;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
@@ -33,6 +34,7 @@ import static org.junit.Assert.assertTrue;
 
 public class Common {
     private static final int LENGTH_OF_CHUNK = 10;
+    private static final int LENGTH_OF_OUTPUT_CHUNK = 3;
 
     private static String[] chunks(final String source, int chunkLength) {
         int sourceLength = source.length();
@@ -90,6 +92,14 @@ public class Common {
         return result;
     }
 
+    public static String repeat(String text, int times) {
+        StringBuilder result = new StringBuilder(text.length() * times);
+        for (int i = 0; i < times; i++) {
+            result.append(text);
+        }
+        return result.toString();
+    }
+
     public static String decodeAtOnce(CharsetDecoder decoder, byte[] source, int desiredTextLength)
             throws CharacterCodingException {
         ByteBuffer in = ByteBuffer.wrap(source);
@@ -146,4 +156,58 @@ public class Common {
 
         return Arrays.copyOf(result.array(), result.limit());
     }
+
+    public static String decodeIntoSmallBuffers(CharsetDecoder decoder, ByteBuffer in) {
+        StringBuilder result = new StringBuilder();
+        CharBuffer out = CharBuffer.allocate(LENGTH_OF_OUTPUT_CHUNK);
+
+        CoderResult coderResult = decoder.decode(in, out, true);
+        while (coderResult.isOverflow()) {
+            result.append(out.flip());
+            out.clear();
+            coderResult = decoder.decode(in, out, true);
+        }
+        assertEquals(CoderResult.UNDERFLOW, coderResult);
+
+        coderResult = decoder.flush(out);
+        while (coderResult.isOverflow()) {
+            result.append(out.flip());
+            out.clear();
+            coderResult = decoder.flush(out);
+        }
+        assertEquals(CoderResult.UNDERFLOW, coderResult);
+
+        return result.append(out.flip()).toString();
+    }
+
+    public static byte[] encodeIntoSmallBuffers(CharsetEncoder encoder, CharBuffer in, boolean direct) {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        ByteBuffer out = direct ? ByteBuffer.allocateDirect(LENGTH_OF_OUTPUT_CHUNK)
+                : ByteBuffer.allocate(LENGTH_OF_OUTPUT_CHUNK);
+
+        CoderResult coderResult = encoder.encode(in, out, true);
+        while (coderResult.isOverflow()) {
+            drainTo(result, out);
+            coderResult = encoder.encode(in, out, true);
+        }
+        assertEquals(CoderResult.UNDERFLOW, coderResult);
+
+        coderResult = encoder.flush(out);
+        while (coderResult.isOverflow()) {
+            drainTo(result, out);
+            coderResult = encoder.flush(out);
+        }
+        assertEquals(CoderResult.UNDERFLOW, coderResult);
+        drainTo(result, out);
+
+        return result.toByteArray();
+    }
+
+    private static void drainTo(ByteArrayOutputStream result, ByteBuffer out) {
+        out.flip();
+        while (out.hasRemaining()) {
+            result.write(out.get());
+        }
+        out.clear();
+    }
 }
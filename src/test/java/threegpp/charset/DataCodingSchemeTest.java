@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import org.junit.Test;
+import threegpp.charset.DataCodingScheme.Alphabet;
+import threegpp.charset.DataCodingScheme.Group;
+import threegpp.charset.gsm.GSM7BitPackedCharset;
+import threegpp.charset.gsm.GSM7BitPackedDecoder;
+import threegpp.charset.gsm.SeptetPacker;
+
+import java.nio.ByteBuffer;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DataCodingSchemeTest {
+
+    @Test
+    public void testSmsGeneralGroup() {
+        check(DataCodingScheme.forSms(0x00), Group.GENERAL, Alphabet.GSM_7BIT, DataCodingScheme.NO_MESSAGE_CLASS);
+        check(DataCodingScheme.forSms(0x04), Group.GENERAL, Alphabet.DATA_8BIT, DataCodingScheme.NO_MESSAGE_CLASS);
+        check(DataCodingScheme.forSms(0x08), Group.GENERAL, Alphabet.UCS2, DataCodingScheme.NO_MESSAGE_CLASS);
+        check(DataCodingScheme.forSms(0x0C), Group.GENERAL, Alphabet.GSM_7BIT, DataCodingScheme.NO_MESSAGE_CLASS);
+        check(DataCodingScheme.forSms(0x10), Group.GENERAL, Alphabet.GSM_7BIT, 0);
+        check(DataCodingScheme.forSms(0x1A), Group.GENERAL, Alphabet.UCS2, 2);
+        check(DataCodingScheme.forSms(0x48), Group.AUTOMATIC_DELETION, Alphabet.UCS2,
+                DataCodingScheme.NO_MESSAGE_CLASS);
+
+        assertTrue(DataCodingScheme.forSms(0x20).isCompressed());
+        assertFalse(DataCodingScheme.forSms(0x10).isCompressed());
+    }
+
+    @Test
+    public void testSmsMessageWaitingGroups() {
+        DataCodingScheme discard = DataCodingScheme.forSms(0xC8);
+        check(discard, Group.MESSAGE_WAITING_DISCARD, Alphabet.GSM_7BIT, DataCodingScheme.NO_MESSAGE_CLASS);
+        assertTrue(discard.isIndicationActive());
+        assertEquals(DataCodingScheme.INDICATION_VOICEMAIL, discard.indicationType());
+
+        DataCodingScheme store = DataCodingScheme.forSms(0xD1);
+        check(store, Group.MESSAGE_WAITING_STORE, Alphabet.GSM_7BIT, DataCodingScheme.NO_MESSAGE_CLASS);
+        assertFalse(store.isIndicationActive());
+        assertEquals(DataCodingScheme.INDICATION_FAX, store.indicationType());
+
+        DataCodingScheme storeUcs2 = DataCodingScheme.forSms(0xEA);
+        check(storeUcs2, Group.MESSAGE_WAITING_STORE, Alphabet.UCS2, DataCodingScheme.NO_MESSAGE_CLASS);
+        assertEquals(DataCodingScheme.INDICATION_EMAIL, storeUcs2.indicationType());
+
+        assertEquals(DataCodingScheme.NO_INDICATION, DataCodingScheme.forSms(0x00).indicationType());
+    }
+
+    @Test
+    public void testSmsDataCodingMessageClassGroup() {
+        check(DataCodingScheme.forSms(0xF0), Group.DATA_CODING_MESSAGE_CLASS, Alphabet.GSM_7BIT, 0);
+        check(DataCodingScheme.forSms(0xF6), Group.DATA_CODING_MESSAGE_CLASS, Alphabet.DATA_8BIT, 2);
+    }
+
+    @Test
+    public void testSmsReservedGroupsAreGsm() {
+        for (int dcs = 0x80; dcs < 0xC0; dcs++) {
+            check(DataCodingScheme.forSms(dcs), Group.RESERVED, Alphabet.GSM_7BIT, DataCodingScheme.NO_MESSAGE_CLASS);
+        }
+    }
+
+    @Test
+    public void testCbsLanguageGroups() {
+        DataCodingScheme english = DataCodingScheme.forCbs(0x01);
+        check(english, Group.LANGUAGE, Alphabet.GSM_7BIT, DataCodingScheme.NO_MESSAGE_CLASS);
+        assertEquals(0x01, english.language());
+        assertEquals(0x23, DataCodingScheme.forCbs(0x23).language());
+        assertEquals(Group.RESERVED, DataCodingScheme.forCbs(0x25).group());
+
+        check(DataCodingScheme.forCbs(0x10), Group.LANGUAGE_INDICATION, Alphabet.GSM_7BIT,
+                DataCodingScheme.NO_MESSAGE_CLASS);
+        check(DataCodingScheme.forCbs(0x11), Group.LANGUAGE_INDICATION, Alphabet.UCS2,
+                DataCodingScheme.NO_MESSAGE_CLASS);
+        assertEquals(DataCodingScheme.NO_LANGUAGE, DataCodingScheme.forCbs(0x11).language());
+        assertEquals(Group.RESERVED, DataCodingScheme.forCbs(0x12).group());
+    }
+
+    @Test
+    public void testCbsOtherGroups() {
+        check(DataCodingScheme.forCbs(0x48), Group.GENERAL, Alphabet.UCS2, DataCodingScheme.NO_MESSAGE_CLASS);
+        check(DataCodingScheme.forCbs(0x95), Group.USER_DATA_HEADER, Alphabet.DATA_8BIT, 1);
+        check(DataCodingScheme.forCbs(0xE0), Group.WAP, Alphabet.DATA_8BIT, DataCodingScheme.NO_MESSAGE_CLASS);
+        check(DataCodingScheme.forCbs(0xF0), Group.DATA_CODING_MESSAGE_CLASS, Alphabet.GSM_7BIT,
+                DataCodingScheme.NO_MESSAGE_CLASS);
+        check(DataCodingScheme.forCbs(0xF7), Group.DATA_CODING_MESSAGE_CLASS, Alphabet.DATA_8BIT, 3);
+    }
+
+    @Test
+    public void testSchemesAreShared() {
+        for (int dcs = 0; dcs < 0x100; dcs++) {
+            assertSame(DataCodingScheme.forSms(dcs), DataCodingScheme.forSms((byte) dcs));
+            assertSame(DataCodingScheme.forCbs(dcs), DataCodingScheme.forCbs(dcs + 0x100));
+            assertEquals(dcs, DataCodingScheme.forSms(dcs).value());
+            assertEquals(dcs, DataCodingScheme.forCbs(dcs).value());
+        }
+    }
+
+    @Test
+    public void testDecoder() throws CharacterCodingException {
+        CharsetDecoder gsm = DataCodingScheme.forSms(0x00).decoder();
+        assertEquals(EncodedText.GSM_7BP.getText(), gsm.decode(ByteBuffer.wrap(EncodedText.GSM_7BP.getBytes()))
+                .toString());
+
+        CharsetDecoder ucs2 = DataCodingScheme.forSms(0x08).decoder();
+        byte[] userData = {0x04, 0x1F, 0x04, 0x40, 0x04, 0x38, 0x00, 0x21};
+        assertEquals("При!", ucs2.decode(ByteBuffer.wrap(userData)).toString());
+
+        assertNull(DataCodingScheme.forSms(0x04).decoder());
+        assertNull(DataCodingScheme.forSms(0x28).decoder());
+    }
+
+    @Test
+    public void testDecoderIsCachedAndRestored() throws CharacterCodingException {
+        GSM7BitPackedDecoder decoder = (GSM7BitPackedDecoder) DataCodingScheme.forSms(0x00).decoder();
+        decoder.fillBits(3).septetCount(2);
+        decoder.decode(ByteBuffer.wrap(new byte[]{0x08, 0x12}));
+
+        CharsetDecoder again = DataCodingScheme.forCbs(0x01).decoder();
+        assertSame(decoder, again);
+        assertEquals(0, decoder.fillBits());
+        assertEquals(GSM7BitPackedDecoder.UNKNOWN_SEPTET_COUNT, decoder.septetCount());
+        assertEquals(EncodedText.GSM_7BP_CYCLE.getText(),
+                again.decode(ByteBuffer.wrap(EncodedText.GSM_7BP_CYCLE.getBytes())).toString());
+    }
+
+    @Test
+    public void testDecoderSettingsDoNotLeakIntoTelecomCodecs() {
+        Charset gsm = new GSM7BitPackedCharset();
+        byte[] bytes = TelecomCodecs.encode("Hello world", gsm);
+
+        ((GSM7BitPackedDecoder) DataCodingScheme.forSms(0x00).decoder()).septetCount(3).fillBits(2).crPadding(true);
+        assertEquals("Hello world", TelecomCodecs.decode(bytes, gsm));
+    }
+
+    @Test
+    public void testUcs2WithLanguageIndication() throws CharacterCodingException, UnsupportedEncodingException {
+        byte[] userData = {0x65, 0x37, 0x04, 0x1F, 0x04, 0x40, 0x04, 0x38};
+        DataCodingScheme scheme = DataCodingScheme.forCbs(0x11);
+
+        byte[] language = new byte[2];
+        SeptetPacker.unpack(userData, 0, language.length, language, 0, 0);
+        assertArrayEquals("en".getBytes("US-ASCII"), language);
+
+        int skip = DataCodingScheme.UCS2_LANGUAGE_INDICATION_OCTETS;
+        ByteBuffer text = ByteBuffer.wrap(userData, skip, userData.length - skip);
+        assertEquals("При", scheme.decoder().decode(text).toString());
+    }
+
+    private static void check(DataCodingScheme scheme, Group group, Alphabet alphabet, int messageClass) {
+        assertEquals(scheme.toString(), group, scheme.group());
+        assertEquals(scheme.toString(), alphabet, scheme.alphabet());
+        assertEquals(scheme.toString(), messageClass, scheme.messageClass());
+    }
+}
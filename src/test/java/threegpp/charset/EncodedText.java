@@ -36,10 +36,23 @@ public enum EncodedText {
     // edge case when string ends with 00 byte - @ (at) character
     GSM_7BP_AT("Lorem ipsum dolor sit amet@", "CCB7BCDC06A5E1F37A1B447EB3DF72D03C4D0785DB653A00"),
 
+    // 7 septets fill 7 octets exactly, zero padding of the last octet must not be decoded as @
+    GSM_7BP_CYCLE("ABCDEFG", "41E19058341E01"),
+
+    GSM_7BP_CYCLE_FULL("ABCDEFGH", "41E19058341E91"),
+
+    // @ at the end of the first 7 octet cycle followed by more data
+    GSM_7BP_CYCLE_AT("ABCDEFG@ABCDEFG", "41E19058341E0141E19058341E01"),
+
     GSM_7BP("[Lorem ipsum dolor sit amet], {consectetur adipiscing elit.} Quisque sagittis ~.",
             "1B1EF32D2FB74169F8BCDE0691DFECB71C344FD341E17699BEF1B1401BD4F8ED9E97C7F432BD2E0785C969787A3E4EBBCFA0323B4D"
                     + "776D52A0683D3D8FD7CBA079F89CA6D3D373D0A6E702"),
 
+    // national language locking and single shift tables of the same language
+    GSM_TR("Işık Ğüzel şİ ç€{", "491D076B200B7E7A656C201D402060041B28"),
+    GSM_ES("Años, ¿Qué? está ç", "417D6F732C20605175053F206573741B61201B09"),
+    GSM_PT("Não, Ângela! €{ê}", "4E7B6F2C201C6E67656C612120181B28041B29"),
+
     UCS2_INVALID("", "ADBCFD"),
 
     UCS2_80("Valid Text. Корректный текст. सही पाठ",
@@ -50,7 +63,13 @@ public enum EncodedText {
 
     UCS2_81("Valid Text. Корректный текст.", "811D0856616C696420546578742E209ABEC0C0B5BAC2BDCBB920C2B5BAC1C22E"),
     UCS2_81_SINGLE("V", "81010056"),
-    UCS2_81_SINGLE_INVALID_LENGTH("V", "811D0856");
+    UCS2_81_SINGLE_INVALID_LENGTH("V", "811D0856"),
+
+    UCS2_82("Valid Text. Корректный текст.", "821D041A56616C696420546578742E2080A4A6A69BA0A8A3B19F20A89BA0A7A82E"),
+    // chars from two half pages, out of reach of 0x81
+    UCS2_82_CROSS_HALF_PAGE("Ѡѿ Ҁ҉", "82050460809F20A0A9"),
+    UCS2_82_SINGLE("V", "8201000056"),
+    UCS2_82_SINGLE_INVALID_LENGTH("V", "821D000056");
 
 
     private String text;
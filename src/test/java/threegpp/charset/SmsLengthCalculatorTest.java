@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import org.junit.Test;
+import threegpp.charset.gsm.GSMCharset;
+import threegpp.charset.gsm.NationalLanguage;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static threegpp.charset.Common.repeat;
+import static threegpp.charset.gsm.Common.randomText;
+
+public class SmsLengthCalculatorTest {
+    private static final int RANDOM_TEXTS_COUNT = 500;
+    private static final String[] UCS2_ONLY = {"Я", "ş", "\uD83D\uDE00"};
+
+    private final SmsLengthCalculator calculator = new SmsLengthCalculator();
+
+    @Test
+    public void testGsmText() {
+        assertEquals(1, calculator.calculate("Hello {}"));
+        assertFalse(calculator.isUcs2());
+        assertEquals(10, calculator.length());
+        assertEquals(150, calculator.remaining());
+    }
+
+    @Test
+    public void testEmptyText() {
+        assertEquals(1, calculator.calculate(""));
+        assertEquals(0, calculator.length());
+        assertEquals(160, calculator.remaining());
+    }
+
+    @Test
+    public void testConcatenatedGsmText() {
+        assertEquals(2, calculator.calculate(repeat("A", 161)));
+        assertEquals(161, calculator.length());
+        assertEquals(153 - 8, calculator.remaining());
+    }
+
+    @Test
+    public void testUcs2Text() {
+        assertEquals(1, calculator.calculate("Привет"));
+        assertTrue(calculator.isUcs2());
+        assertEquals(12, calculator.length());
+        assertEquals(64, calculator.remaining());
+
+        assertEquals(2, calculator.calculate(repeat("A", 100) + "Я"));
+        assertEquals(202, calculator.length());
+        assertEquals(67 - 34, calculator.remaining());
+    }
+
+    @Test
+    public void testNationalLanguageTables() {
+        SmsLengthCalculator turkish = new SmsLengthCalculator(
+                GSMCharset.forLanguages(NationalLanguage.TURKISH, NationalLanguage.DEFAULT));
+        assertEquals(1, turkish.calculate("Işık"));
+        assertFalse(turkish.isUcs2());
+        assertEquals(4, turkish.length());
+        // locking shift information element takes 5 septets of a single segment
+        assertEquals(155 - 4, turkish.remaining());
+    }
+
+    @Test
+    public void testAgreesWithSegmenter() {
+        Random random = new Random(0x5EED);
+        SmsSegmenter segmenter = new SmsSegmenter();
+        for (int i = 0; i < RANDOM_TEXTS_COUNT; i++) {
+            String text = randomSmsText(random, random.nextInt(700));
+            int segments = calculator.calculate(text);
+            assertEquals(text, segmenter.split(text), segments);
+            assertEquals(text, segmenter.isUcs2(), calculator.isUcs2());
+
+            int lastLength = segmenter.userDataLength(segments - 1);
+            if (segmenter.hasUserDataHeader()) {
+                int header = calculator.isUcs2() ? 6 : 7;
+                assertEquals(text, (calculator.isUcs2() ? 140 : 160) - lastLength,
+                        calculator.remaining() * (calculator.isUcs2() ? 2 : 1));
+                assertTrue(lastLength > header);
+            }
+        }
+    }
+
+    /**
+     * Random GSM text, half of the time with a char out of GSM alphabet inserted to force UCS2.
+     */
+    private static String randomSmsText(Random random, int length) {
+        String text = randomText(random, length);
+        if (random.nextBoolean()) {
+            return text;
+        }
+        int at = random.nextInt(text.length());
+        String ucs2 = UCS2_ONLY[random.nextInt(UCS2_ONLY.length)];
+        return text.substring(0, at) + ucs2 + text.substring(at);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import org.junit.Test;
+import threegpp.charset.gsm.GSMCharset;
+import threegpp.charset.gsm.NationalLanguage;
+import threegpp.charset.gsm.SeptetPacker;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static javax.xml.bind.DatatypeConverter.parseHexBinary;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static threegpp.charset.Common.repeat;
+
+public class SmsSegmenterTest {
+    private static final int REFERENCE = 0x42;
+
+    private final SmsSegmenter segmenter = new SmsSegmenter();
+    private final byte[] userData = new byte[SmsSegmenter.MAX_USER_DATA_OCTETS];
+
+    @Test
+    public void testSingleGsmSegment() {
+        assertEquals(1, segmenter.split("Hello"));
+        assertFalse(segmenter.isUcs2());
+        assertFalse(segmenter.hasUserDataHeader());
+        assertEquals(5, segmenter.userDataLength(0));
+
+        int length = segmenter.write(0, REFERENCE, userData, 0);
+        assertArrayEquals(parseHexBinary("C8329BFD06"), Arrays.copyOf(userData, length));
+    }
+
+    @Test
+    public void testGsmSegmentsCapacity() {
+        assertEquals(1, segmenter.split(repeat("A", 160)));
+        assertEquals(2, segmenter.split(repeat("A", 161)));
+        assertTrue(segmenter.hasUserDataHeader());
+        assertEquals(160, segmenter.userDataLength(0));
+        assertEquals(7 + 8, segmenter.userDataLength(1));
+
+        int length = segmenter.write(0, REFERENCE, userData, 0);
+        assertEquals(SmsSegmenter.MAX_USER_DATA_OCTETS, length);
+        assertArrayEquals(parseHexBinary("050003420201"), Arrays.copyOf(userData, 6));
+        // one fill bit after 6 octets of header
+        assertEquals((byte) ('A' << 1), userData[6]);
+    }
+
+    @Test
+    public void testEscapeIsNotSplit() throws CharacterCodingException {
+        String text = repeat("A", 152) + "{" + repeat("A", 10);
+        assertEquals(2, segmenter.split(text));
+        assertEquals(7 + 152, segmenter.userDataLength(0));
+        assertEquals(7 + 2 + 10, segmenter.userDataLength(1));
+        assertEquals(text, decodeGsm(new GSMCharset()));
+    }
+
+    @Test
+    public void testUcs2Segments() {
+        String text = repeat("Б", 70);
+        assertEquals(1, segmenter.split(text));
+        assertTrue(segmenter.isUcs2());
+        assertEquals(140, segmenter.userDataLength(0));
+
+        assertEquals(2, segmenter.split(text + 'Б'));
+        assertEquals(6 + 67 * 2, segmenter.userDataLength(0));
+        assertEquals(6 + 4 * 2, segmenter.userDataLength(1));
+        assertEquals(text + 'Б', decodeUcs2());
+    }
+
+    @Test
+    public void testSurrogatePairIsNotSplit() {
+        String text = repeat("Б", 66) + "\uD83D\uDE00" + repeat("Б", 10);
+        assertEquals(2, segmenter.split(text));
+        assertEquals(6 + 66 * 2, segmenter.userDataLength(0));
+        assertEquals(text, decodeUcs2());
+    }
+
+    @Test
+    public void testLoneHighSurrogateDoesNotMoveBoundary() {
+        String text = repeat("Б", 66) + "\uD83D" + repeat("Б", 10);
+        assertEquals(2, segmenter.split(text));
+        assertEquals(6 + 67 * 2, segmenter.userDataLength(0));
+    }
+
+    @Test
+    public void testNationalLanguageHeader() throws CharacterCodingException {
+        GSMCharset turkish = GSMCharset.forLanguages(NationalLanguage.TURKISH, NationalLanguage.DEFAULT);
+        SmsSegmenter turkishSegmenter = new SmsSegmenter(turkish);
+
+        assertEquals(1, turkishSegmenter.split("Işık"));
+        assertTrue(turkishSegmenter.hasUserDataHeader());
+        // 4 octets of header take 5 septets
+        assertEquals(5 + 4, turkishSegmenter.userDataLength(0));
+        turkishSegmenter.write(0, REFERENCE, userData, 0);
+        assertArrayEquals(parseHexBinary("03250101"), Arrays.copyOf(userData, 4));
+
+        String text = repeat("ş", 200);
+        assertEquals(2, turkishSegmenter.split(text));
+        // 9 octets of header take 11 septets
+        assertEquals(160, turkishSegmenter.userDataLength(0));
+        turkishSegmenter.write(1, REFERENCE, userData, 0);
+        assertArrayEquals(parseHexBinary("080003420202250101"), Arrays.copyOf(userData, 9));
+        assertEquals(text, decodeGsm(turkishSegmenter, turkish));
+    }
+
+    @Test
+    public void testEmptyText() {
+        assertEquals(1, segmenter.split(""));
+        assertEquals(0, segmenter.userDataLength(0));
+        assertEquals(0, segmenter.write(0, REFERENCE, userData, 0));
+    }
+
+    @Test
+    public void testEmptyTextWithNationalLanguageHeader() {
+        GSMCharset spanish = GSMCharset.forLanguages(NationalLanguage.DEFAULT, NationalLanguage.SPANISH);
+        SmsSegmenter spanishSegmenter = new SmsSegmenter(spanish);
+
+        assertEquals(1, spanishSegmenter.split(""));
+        // 4 octets of header and 3 fill bits take 5 septets, that is 5 octets
+        assertEquals(5, spanishSegmenter.userDataLength(0));
+        assertEquals(5, spanishSegmenter.write(0, REFERENCE, userData, 0));
+        assertArrayEquals(parseHexBinary("0324010200"), Arrays.copyOf(userData, 5));
+
+        StringBuilder out = new StringBuilder();
+        assertEquals(CoderResult.UNDERFLOW, new UserDataDecoder().decode(ByteBuffer.wrap(userData), 0, true, 0x00,
+                spanishSegmenter.userDataLength(0), out));
+        assertEquals("", out.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManySegments() {
+        segmenter.split(repeat("A", 153 * SmsSegmenter.MAX_SEGMENTS + 1));
+    }
+
+    @Test
+    public void testReuse() throws CharacterCodingException {
+        String longText = repeat("A", 1000);
+        assertEquals(7, segmenter.split(longText));
+        assertEquals(longText, decodeGsm(new GSMCharset()));
+        assertEquals(1, segmenter.split("Hello"));
+        assertEquals("Hello", decodeGsm(new GSMCharset()));
+    }
+
+    private String decodeGsm(GSMCharset cs) throws CharacterCodingException {
+        return decodeGsm(segmenter, cs);
+    }
+
+    private String decodeGsm(SmsSegmenter source, GSMCharset cs) throws CharacterCodingException {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < source.segments(); i++) {
+            source.write(i, REFERENCE, userData, 0);
+            int header = source.hasUserDataHeader() ? (userData[0] & 0xFF) + 1 : 0;
+            int headerSeptets = (header * 8 + 6) / 7;
+            int septetCount = source.userDataLength(i) - headerSeptets;
+            byte[] septets = new byte[septetCount];
+            SeptetPacker.unpack(userData, header, septetCount, septets, 0, headerSeptets * 7 - header * 8);
+            result.append(cs.newDecoder().decode(ByteBuffer.wrap(septets)));
+        }
+        return result.toString();
+    }
+
+    private String decodeUcs2() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < segmenter.segments(); i++) {
+            int length = segmenter.write(i, REFERENCE, userData, 0);
+            int header = segmenter.hasUserDataHeader() ? (userData[0] & 0xFF) + 1 : 0;
+            result.append(new String(userData, header, length - header, StandardCharsets.UTF_16BE));
+        }
+        return result.toString();
+    }
+}
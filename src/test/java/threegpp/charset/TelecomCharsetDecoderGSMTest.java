@@ -24,8 +24,10 @@ import org.junit.Test;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static threegpp.charset.Common.decodeAtOnce;
 import static threegpp.charset.gsm.Common.INVALID_TEXT;
 import static threegpp.charset.gsm.Common.INVALID_TEXT_CHARSET;
@@ -73,4 +75,17 @@ public class TelecomCharsetDecoderGSMTest extends TelecomCharsetDecoderTestBase
         String result = decodeAtOnce(getDecoder(), source, desiredResult.length());
         assertEquals(desiredResult, result);
     }
+
+    @Test
+    public void testDetectedCharsetReusedAfterReset() throws CharacterCodingException {
+        tryDecodeWith(EncodedText.GSM);
+        Charset gsmCharset = getDecoder().detectedCharset();
+        reset();
+
+        tryDecodeWith(EncodedText.UCS2_80);
+        reset();
+
+        tryDecodeWith(EncodedText.GSM_SINGLE);
+        assertSame(gsmCharset, getDecoder().detectedCharset());
+    }
 }
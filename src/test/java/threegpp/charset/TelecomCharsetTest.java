@@ -26,6 +26,7 @@ import threegpp.charset.junit.CharsetTestRule;
 import threegpp.charset.junit.TestCharset;
 import threegpp.charset.ucs2.UCS2Charset80;
 import threegpp.charset.ucs2.UCS2Charset81;
+import threegpp.charset.ucs2.UCS2Charset82;
 
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
@@ -59,6 +60,7 @@ public class TelecomCharsetTest extends TestCharset<CharsetEncoder, TelecomChars
         charsets.add(new GSMCharset());
         charsets.add(new UCS2Charset80());
         charsets.add(new UCS2Charset81());
+        charsets.add(new UCS2Charset82());
 
         checkContainsSuccessful(charsets);
         checkContainsFailing();
@@ -71,6 +73,8 @@ public class TelecomCharsetTest extends TestCharset<CharsetEncoder, TelecomChars
 
         checkDecode(EncodedText.UCS2_81);
         checkDecode(EncodedText.UCS2_81_SINGLE);
+        checkDecode(EncodedText.UCS2_82);
+        checkDecode(EncodedText.UCS2_82_SINGLE);
 
         checkDecode(EncodedText.GSM);
         checkDecode(EncodedText.GSM_SINGLE);
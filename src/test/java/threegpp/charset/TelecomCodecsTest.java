@@ -0,0 +1,184 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import org.junit.Test;
+import threegpp.charset.gsm.GSM7BitPackedCharset;
+import threegpp.charset.gsm.GSMCharset;
+import threegpp.charset.ucs2.UCS2Charset80;
+import threegpp.charset.ucs2.UCS2Charset81;
+
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class TelecomCodecsTest {
+    private static final int REPEATS_COUNT = 10;
+    private static final int SHORT_LIVED_THREADS_COUNT = 200;
+
+    private final Charset gsm = new GSMCharset();
+    private final Charset gsmPacked = new GSM7BitPackedCharset();
+    private final Charset ucs2x80 = new UCS2Charset80();
+    private final Charset ucs2x81 = new UCS2Charset81();
+
+    @Test
+    public void testEncode() {
+        for (int i = 0; i < REPEATS_COUNT; i++) {
+            checkEncode(EncodedText.GSM, gsm);
+            checkEncode(EncodedText.GSM_7BP, gsmPacked);
+            checkEncode(EncodedText.GSM_7BP_AT, gsmPacked);
+            checkEncode(EncodedText.UCS2_80, ucs2x80);
+            checkEncode(EncodedText.UCS2_81, ucs2x81);
+        }
+    }
+
+    @Test
+    public void testDecode() {
+        for (int i = 0; i < REPEATS_COUNT; i++) {
+            checkDecode(EncodedText.GSM, gsm);
+            checkDecode(EncodedText.GSM_7BP, gsmPacked);
+            checkDecode(EncodedText.UCS2_80, ucs2x80);
+            checkDecode(EncodedText.UCS2_81, ucs2x81);
+            checkDecode(EncodedText.UCS2_81, new TelecomCharset());
+        }
+    }
+
+    @Test
+    public void testDecodeWithOffset() {
+        byte[] source = EncodedText.GSM.getBytes();
+        byte[] framed = new byte[source.length + 4];
+        System.arraycopy(source, 0, framed, 2, source.length);
+
+        assertEquals(EncodedText.GSM.getText(), TelecomCodecs.decode(framed, 2, source.length, gsm));
+    }
+
+    @Test
+    public void testUnmappableReplaced() {
+        assertArrayEquals(new byte[]{0x41, 0x3F, 0x42}, TelecomCodecs.encode("A\u0531B", gsm));
+        assertEquals("A\uFFFDB", TelecomCodecs.decode(new byte[]{0x41, (byte) 0x80, 0x42}, gsm));
+    }
+
+    @Test
+    public void testTextLongerThanScratchBuffer() {
+        char[] chars = new char[TelecomCodecs.MAX_SCRATCH_LENGTH * 2 + 1];
+        Arrays.fill(chars, 'x');
+        String text = new String(chars);
+
+        byte[] encoded = TelecomCodecs.encode(text, ucs2x80);
+        assertArrayEquals(text.getBytes(ucs2x80), encoded);
+        assertEquals(text, TelecomCodecs.decode(encoded, ucs2x80));
+    }
+
+    @Test
+    public void testMoreCharsetsThanCached() {
+        Charset[] charsets = {gsm, gsmPacked, ucs2x80, ucs2x81, new GSMCharset(), new UCS2Charset80()};
+        String text = EncodedText.UCS2_81_SINGLE.getText();
+
+        for (int i = 0; i < REPEATS_COUNT; i++) {
+            for (Charset cs : charsets) {
+                assertEquals(text, TelecomCodecs.decode(TelecomCodecs.encode(text, cs), cs));
+            }
+        }
+    }
+
+    @Test
+    public void testManyShortLivedThreads() throws Throwable {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    checkEncode(EncodedText.GSM_7BP, gsmPacked);
+                    checkDecode(EncodedText.UCS2_80, ucs2x80);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        };
+        Thread[] threads = new Thread[SHORT_LIVED_THREADS_COUNT];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(task);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    @Test
+    public void testPlatformThreadIsNotVirtual() {
+        assertFalse(TelecomCodecs.isVirtual(Thread.currentThread()));
+    }
+
+    @Test
+    public void testVirtualThreadsAreNotCached() throws Throwable {
+        Method ofVirtual;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            ofVirtual = null;
+        }
+        assumeTrue(ofVirtual != null);
+
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    assertTrue(TelecomCodecs.isVirtual(Thread.currentThread()));
+                    checkEncode(EncodedText.GSM_7BP, gsmPacked);
+                    checkDecode(EncodedText.UCS2_80, ucs2x80);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        };
+        Object builder = ofVirtual.invoke(null);
+        Method start = Class.forName("java.lang.Thread$Builder").getMethod("start", Runnable.class);
+        Thread[] threads = new Thread[SHORT_LIVED_THREADS_COUNT];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = (Thread) start.invoke(builder, task);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private static void checkEncode(EncodedText encodedText, Charset cs) {
+        assertArrayEquals(encodedText.getBytes(), TelecomCodecs.encode(encodedText.getText(), cs));
+    }
+
+    private static void checkDecode(EncodedText encodedText, Charset cs) {
+        assertEquals(encodedText.getText(), TelecomCodecs.decode(encodedText.getBytes(), cs));
+    }
+}
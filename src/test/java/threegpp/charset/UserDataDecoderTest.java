@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import org.junit.Test;
+import threegpp.charset.gsm.GSMCharset;
+import threegpp.charset.gsm.NationalLanguage;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static threegpp.charset.Common.repeat;
+
+public class UserDataDecoderTest {
+    private static final int DCS_GSM = 0x00;
+    private static final int DCS_8BIT = 0x04;
+    private static final int DCS_UCS2 = 0x08;
+    private static final int PDU_PREFIX = 12;
+    private static final int REFERENCE = 0x2A;
+
+    private final UserDataDecoder decoder = new UserDataDecoder();
+    private final SmsSegmenter segmenter = new SmsSegmenter();
+
+    @Test
+    public void testGsmWithoutHeader() {
+        byte[] pdu = {0x07, (byte) 0xE8, 0x32, (byte) 0x9B, (byte) 0xFD, 0x46, (byte) 0x97, (byte) 0xD9, (byte) 0xEC,
+                0x37};
+        CharBuffer out = CharBuffer.allocate(16);
+
+        assertEquals(CoderResult.UNDERFLOW, decoder.decode(ByteBuffer.wrap(pdu), 1, false, DCS_GSM, 10, out));
+        assertEquals("hellohello", out.flip().toString());
+        assertEquals(0, decoder.headerLength());
+    }
+
+    @Test
+    public void testGsmTrailingAt() {
+        ByteBuffer pdu = ByteBuffer.wrap(EncodedText.GSM_7BP_CYCLE.getBytes());
+        StringBuilder out = new StringBuilder();
+
+        assertEquals(CoderResult.UNDERFLOW, decoder.decode(pdu, 0, false, DCS_GSM, 8, out));
+        assertEquals("ABCDEFG@", out.toString());
+    }
+
+    @Test
+    public void testConcatenatedGsm() {
+        checkRoundTrip(repeat("Lorem ipsum dolor sit amet {consectetur} ", 12), DCS_GSM);
+    }
+
+    @Test
+    public void testConcatenatedUcs2() {
+        checkRoundTrip(repeat("Привет, мир! ", 20), DCS_UCS2);
+    }
+
+    @Test
+    public void testSingleSegment() {
+        checkRoundTrip("Hello", DCS_GSM);
+        checkRoundTrip("Привет", DCS_UCS2);
+    }
+
+    @Test
+    public void testBufferStateIsKept() {
+        ByteBuffer pdu = ByteBuffer.allocateDirect(PDU_PREFIX + SmsSegmenter.MAX_USER_DATA_OCTETS);
+        segmenter.split("Hello");
+        byte[] userData = new byte[SmsSegmenter.MAX_USER_DATA_OCTETS];
+        int length = segmenter.write(0, REFERENCE, userData, 0);
+        pdu.position(PDU_PREFIX);
+        pdu.put(userData, 0, length);
+        pdu.position(3).limit(PDU_PREFIX + length);
+
+        StringBuilder out = new StringBuilder();
+        assertEquals(CoderResult.UNDERFLOW, decoder.decode(pdu, PDU_PREFIX, false, DCS_GSM,
+                segmenter.userDataLength(0), out));
+        assertEquals("Hello", out.toString());
+        assertEquals(3, pdu.position());
+        assertEquals(PDU_PREFIX + length, pdu.limit());
+    }
+
+    @Test
+    public void testOverflowLeavesOutput() {
+        byte[] pdu = EncodedText.GSM_7BP_CYCLE.getBytes();
+        CharBuffer out = CharBuffer.allocate(4);
+        out.put('x');
+
+        assertEquals(CoderResult.OVERFLOW, decoder.decode(ByteBuffer.wrap(pdu), 0, false, DCS_GSM, 7, out));
+        assertEquals(1, out.position());
+    }
+
+    @Test
+    public void testMalformedLengths() {
+        ByteBuffer pdu = ByteBuffer.wrap(EncodedText.GSM_7BP_CYCLE.getBytes());
+        CharBuffer out = CharBuffer.allocate(16);
+
+        assertTrue(decoder.decode(pdu, 0, false, DCS_GSM, 9, out).isMalformed());
+        assertTrue(decoder.decode(pdu, 0, false, DCS_UCS2, 8, out).isMalformed());
+        assertTrue(decoder.decode(pdu, 0, true, DCS_GSM, 8, out).isMalformed());
+        assertEquals(0, out.position());
+    }
+
+    @Test
+    public void testBinaryData() {
+        CharBuffer out = CharBuffer.allocate(16);
+        assertTrue(decoder.decode(ByteBuffer.wrap(new byte[4]), 0, false, DCS_8BIT, 4, out).isUnmappable());
+    }
+
+    @Test
+    public void testNationalLanguageElementsSelectTables() {
+        GSMCharset turkish = GSMCharset.forLanguages(NationalLanguage.TURKISH, NationalLanguage.TURKISH);
+        SmsSegmenter turkishSegmenter = new SmsSegmenter(turkish);
+        String text = EncodedText.GSM_TR.getText();
+        assertEquals(1, turkishSegmenter.split(text));
+        byte[] userData = new byte[SmsSegmenter.MAX_USER_DATA_OCTETS];
+        turkishSegmenter.write(0, REFERENCE, userData, 0);
+
+        StringBuilder out = new StringBuilder();
+        assertEquals(CoderResult.UNDERFLOW, decoder.decode(ByteBuffer.wrap(userData), 0, true, DCS_GSM,
+                turkishSegmenter.userDataLength(0), out));
+        assertEquals(text, out.toString());
+        assertEquals(NationalLanguage.TURKISH, decoder.lockingShift());
+        assertEquals(NationalLanguage.TURKISH, decoder.singleShift());
+
+        out.setLength(0);
+        assertEquals(CoderResult.UNDERFLOW, decoder.decode(ByteBuffer.wrap(EncodedText.GSM_7BP_CYCLE.getBytes()), 0,
+                false, DCS_GSM, 7, out));
+        assertEquals("ABCDEFG", out.toString());
+        assertEquals(NationalLanguage.DEFAULT, decoder.lockingShift());
+    }
+
+    @Test
+    public void testUnknownNationalLanguageIsIgnored() {
+        // single shift of unknown language 0x7F, then "Hi" after 3 fill bits
+        byte[] userData = {0x03, 0x24, 0x01, 0x7F, 0x40, (byte) 0xA6, 0x01};
+        StringBuilder out = new StringBuilder();
+
+        assertEquals(CoderResult.UNDERFLOW, decoder.decode(ByteBuffer.wrap(userData), 0, true, DCS_GSM, 7, out));
+        assertEquals("Hi", out.toString());
+        assertEquals(NationalLanguage.DEFAULT, decoder.singleShift());
+    }
+
+    private void checkRoundTrip(String text, int dcs) {
+        int segments = segmenter.split(text);
+        assertEquals(dcs == DCS_UCS2, segmenter.isUcs2());
+        ByteBuffer pdu = ByteBuffer.allocate(PDU_PREFIX + SmsSegmenter.MAX_USER_DATA_OCTETS);
+        byte[] userData = new byte[SmsSegmenter.MAX_USER_DATA_OCTETS];
+        CharBuffer out = CharBuffer.allocate(text.length());
+
+        for (int i = 0; i < segments; i++) {
+            int length = segmenter.write(i, REFERENCE, userData, 0);
+            pdu.clear();
+            pdu.position(PDU_PREFIX);
+            pdu.put(userData, 0, length).flip();
+
+            CoderResult result = decoder.decode(pdu, PDU_PREFIX, segmenter.hasUserDataHeader(), dcs,
+                    segmenter.userDataLength(i), out);
+            assertEquals(CoderResult.UNDERFLOW, result);
+            assertEquals(segments > 1 ? 6 : 0, decoder.headerLength());
+        }
+        assertEquals(text, out.flip().toString());
+    }
+}
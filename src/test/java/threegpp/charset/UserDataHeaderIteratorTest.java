@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static javax.xml.bind.DatatypeConverter.parseHexBinary;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UserDataHeaderIteratorTest {
+    private final UserDataHeaderIterator header = new UserDataHeaderIterator();
+
+    @Test
+    public void testElements() {
+        // prefix, header (concatenation, 16 bit ports, locking shift, single shift), text
+        ByteBuffer pdu = ByteBuffer.wrap(parseHexBinary("FFFF" + "11" + "00032A0301" + "0504158A0000" + "250101"
+                + "240102" + "C8329BFD06"));
+        header.reset(pdu, 2);
+        assertEquals(0x12, header.headerLength());
+
+        assertTrue(header.next());
+        assertEquals(UserDataHeaderIterator.IEI_CONCATENATED_8BIT, header.iei());
+        assertEquals(3, header.length());
+        assertEquals(5, header.valueOffset());
+        assertEquals(0x2A, header.value(0));
+        assertEquals(3, header.value(1));
+        assertEquals(1, header.value(2));
+
+        assertTrue(header.next());
+        assertEquals(UserDataHeaderIterator.IEI_APPLICATION_PORT_16BIT, header.iei());
+        assertEquals(4, header.length());
+        assertEquals(0x158A, header.value(0) << 8 | header.value(1));
+
+        assertTrue(header.next());
+        assertEquals(UserDataHeaderIterator.IEI_LOCKING_SHIFT, header.iei());
+        assertEquals(1, header.value(0));
+
+        assertTrue(header.next());
+        assertEquals(UserDataHeaderIterator.IEI_SINGLE_SHIFT, header.iei());
+        assertEquals(2, header.value(0));
+
+        assertFalse(header.next());
+        assertEquals(UserDataHeaderIterator.NO_ELEMENT, header.iei());
+        assertFalse(header.isMalformed());
+        assertEquals(0, pdu.position());
+    }
+
+    @Test
+    public void testEmptyElementAndReuse() {
+        ByteBuffer pdu = ByteBuffer.wrap(parseHexBinary("020A00"));
+        header.reset(pdu, 0);
+        assertTrue(header.next());
+        assertEquals(0x0A, header.iei());
+        assertEquals(0, header.length());
+        assertFalse(header.next());
+
+        header.reset(ByteBuffer.wrap(parseHexBinary("00")), 0);
+        assertFalse(header.next());
+        assertFalse(header.isMalformed());
+    }
+
+    @Test
+    public void testElementPastHeader() {
+        header.reset(ByteBuffer.wrap(parseHexBinary("04000300010203")), 0);
+        assertFalse(header.next());
+        assertTrue(header.isMalformed());
+    }
+
+    @Test
+    public void testHeaderPastBuffer() {
+        header.reset(ByteBuffer.wrap(parseHexBinary("0824010100030102")), 0);
+        assertTrue(header.next());
+        assertEquals(UserDataHeaderIterator.IEI_SINGLE_SHIFT, header.iei());
+        assertFalse(header.next());
+        assertTrue(header.isMalformed());
+    }
+
+    @Test
+    public void testTruncatedElementHeader() {
+        header.reset(ByteBuffer.wrap(parseHexBinary("0424010100")), 0);
+        assertTrue(header.next());
+        assertFalse(header.next());
+        assertTrue(header.isMalformed());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testValueOutOfElement() {
+        header.reset(ByteBuffer.wrap(parseHexBinary("03240101")), 0);
+        header.next();
+        header.value(1);
+    }
+}
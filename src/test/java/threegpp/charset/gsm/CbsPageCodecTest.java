@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.gsm;
+
+import org.junit.Test;
+import threegpp.charset.EncodedText;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static threegpp.charset.Common.repeat;
+
+public class CbsPageCodecTest {
+    private final CbsPageCodec codec = new CbsPageCodec();
+
+    @Test
+    public void testSinglePagePadding() {
+        byte[] septets = new byte[CbsPageCodec.PAGE_SEPTETS];
+        Arrays.fill(septets, GSMCharset.GSM_CARRIAGE_RETURN);
+        septets[0] = 0x48;
+        septets[1] = 0x69;
+        byte[] expected = new byte[CbsPageCodec.PAGE_OCTETS];
+        SeptetPacker.pack(septets, 0, septets.length, expected, 0, 0);
+
+        ByteBuffer out = ByteBuffer.allocate(CbsPageCodec.PAGE_OCTETS);
+        assertEquals(CoderResult.UNDERFLOW, codec.encode(CharBuffer.wrap("Hi"), out, true));
+        assertArrayEquals(expected, out.array());
+
+        CharBuffer decoded = CharBuffer.allocate(CbsPageCodec.PAGE_SEPTETS);
+        assertEquals(CoderResult.UNDERFLOW, codec.decode(ByteBuffer.wrap(expected), decoded));
+        assertEquals("Hi", decoded.flip().toString());
+    }
+
+    @Test
+    public void testMultiplePages() {
+        String text = repeat(EncodedText.GSM.getText(), 4);
+        ByteBuffer pages = encode(text, 15);
+        assertEquals(0, pages.remaining() % CbsPageCodec.PAGE_OCTETS);
+        assertTrue(pages.remaining() / CbsPageCodec.PAGE_OCTETS > 3);
+
+        CharBuffer out = CharBuffer.allocate(text.length());
+        assertEquals(CoderResult.UNDERFLOW, codec.decode(pages, out));
+        assertEquals(text, out.flip().toString());
+    }
+
+    @Test
+    public void testEscapeIsNotSplitBetweenPages() {
+        String text = repeat("A", CbsPageCodec.PAGE_SEPTETS - 1) + "{";
+        ByteBuffer pages = encode(text, 2);
+        assertEquals(2 * CbsPageCodec.PAGE_OCTETS, pages.remaining());
+
+        byte[] septets = new byte[CbsPageCodec.PAGE_SEPTETS];
+        SeptetPacker.unpack(pages.array(), 0, septets.length, septets, 0, 0);
+        assertEquals(GSMCharset.GSM_CARRIAGE_RETURN, septets[CbsPageCodec.PAGE_SEPTETS - 1]);
+
+        CharBuffer out = CharBuffer.allocate(text.length());
+        codec.decode(pages, out);
+        assertEquals(text, out.flip().toString());
+    }
+
+    @Test
+    public void testIncompletePageIsLeftInInput() {
+        ByteBuffer pages = encode("Hello", 1);
+        ByteBuffer in = ByteBuffer.allocate(pages.remaining() + 10);
+        in.put(pages).clear();
+
+        CharBuffer out = CharBuffer.allocate(10);
+        assertEquals(CoderResult.UNDERFLOW, codec.decode(in, out));
+        assertEquals(10, in.remaining());
+        assertEquals("Hello", out.flip().toString());
+    }
+
+    @Test
+    public void testDecodingOverflow() {
+        ByteBuffer pages = encode("Hello", 1);
+        CharBuffer out = CharBuffer.allocate(4);
+
+        assertEquals(CoderResult.OVERFLOW, codec.decode(pages, out));
+        assertEquals(CbsPageCodec.PAGE_OCTETS, pages.remaining());
+        assertEquals(0, out.position());
+    }
+
+    @Test
+    public void testEncodingIntoSmallBuffers() {
+        String text = repeat("0123456789", 30);
+        CharBuffer in = CharBuffer.wrap(text);
+        ByteBuffer pages = ByteBuffer.allocate(4 * CbsPageCodec.PAGE_OCTETS);
+        ByteBuffer out = ByteBuffer.allocateDirect(CbsPageCodec.PAGE_OCTETS);
+
+        CoderResult result;
+        do {
+            result = codec.encode(in, out, true);
+            out.flip();
+            pages.put(out);
+            out.clear();
+        } while (result.isOverflow());
+        assertEquals(CoderResult.UNDERFLOW, result);
+        pages.flip();
+
+        CharBuffer decoded = CharBuffer.allocate(text.length());
+        codec.decode(pages.asReadOnlyBuffer(), decoded);
+        assertEquals(text, decoded.flip().toString());
+    }
+
+    @Test
+    public void testUnmappableChar() {
+        CharBuffer in = CharBuffer.wrap("abжcd");
+        ByteBuffer out = ByteBuffer.allocate(CbsPageCodec.PAGE_OCTETS);
+
+        CoderResult result = codec.encode(in, out, true);
+        assertTrue(result.isUnmappable());
+        assertEquals(2, in.position());
+
+        in.position(3);
+        assertEquals(CoderResult.UNDERFLOW, codec.encode(in, out, true));
+        out.flip();
+        CharBuffer decoded = CharBuffer.allocate(CbsPageCodec.PAGE_SEPTETS);
+        codec.decode(out, decoded);
+        assertEquals("abcd", decoded.flip().toString());
+    }
+
+    @Test
+    public void testNationalLanguageTables() {
+        CbsPageCodec turkish = new CbsPageCodec(
+                GSM7BitPackedCharset.forLanguages(NationalLanguage.TURKISH, NationalLanguage.TURKISH));
+        String text = EncodedText.GSM_TR.getText();
+        ByteBuffer out = ByteBuffer.allocate(4 * CbsPageCodec.PAGE_OCTETS);
+        assertEquals(CoderResult.UNDERFLOW, turkish.encode(CharBuffer.wrap(text), out, true));
+        out.flip();
+
+        CharBuffer decoded = CharBuffer.allocate(text.length());
+        turkish.decode(out, decoded);
+        assertEquals(text, decoded.flip().toString());
+    }
+
+    private ByteBuffer encode(String text, int maxPages) {
+        ByteBuffer out = ByteBuffer.allocate(maxPages * CbsPageCodec.PAGE_OCTETS);
+        assertEquals(CoderResult.UNDERFLOW, codec.encode(CharBuffer.wrap(text), out, true));
+        out.flip();
+        return out;
+    }
+}
@@ -22,6 +22,7 @@ package threegpp.charset.gsm;
 import threegpp.charset.EncodedText;
 
 import java.nio.CharBuffer;
+import java.util.Random;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetEncoder;
 
@@ -36,6 +37,8 @@ public class Common {
     public static final String INVALID_TEXT = "Текст в кириллице";
     public static final String INVALID_TEXT_CHARSET = "cp1251";
 
+    private static final String EXTENSION_TEXT = "^{}\\[~]|\u20AC";
+
     static void checkEncodeAbility(CharsetEncoder encoder) throws CharacterCodingException {
         assertTrue(encoder.canEncode(VALID_CHAR));
         assertFalse(encoder.canEncode(INVALID_CHAR));
@@ -46,4 +49,23 @@ public class Common {
 
         encoder.encode(in);
     }
+
+    /**
+     * Random text of GSM alphabet characters with about one extension table character in 16.
+     * Never ends with '@' to stay away from packing padding ambiguity.
+     */
+    public static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            if (random.nextInt(16) == 0) {
+                text.append(EXTENSION_TEXT.charAt(random.nextInt(EXTENSION_TEXT.length())));
+            } else {
+                char ch = GSMCharset.GSM_CHARACTERS.charAt(random.nextInt(GSMCharset.GSM_CHARACTERS.length()));
+                if (ch != GSMCharset.ESCAPE_PLACE_CHAR) {
+                    text.append(ch);
+                }
+            }
+        }
+        return text.append('.').toString();
+    }
 }
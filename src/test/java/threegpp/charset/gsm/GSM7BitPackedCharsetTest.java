@@ -25,10 +25,19 @@ import threegpp.charset.EncodedText;
 import threegpp.charset.junit.CharsetTestRule;
 import threegpp.charset.junit.TestCharset;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static threegpp.charset.Common.decodeIntoSmallBuffers;
+import static threegpp.charset.Common.encodeIntoSmallBuffers;
+import static threegpp.charset.gsm.Common.randomText;
 
 public class GSM7BitPackedCharsetTest extends TestCharset<GSM7BitPackedEncoder, GSM7BitPackedDecoder> {
 
@@ -85,4 +94,21 @@ public class GSM7BitPackedCharsetTest extends TestCharset<GSM7BitPackedEncoder,
     public void testDecoderType() {
         checkNewDecoder(GSM7BitPackedDecoder.class);
     }
+
+    @Test
+    public void testBulkAndBitByBitPackingAgree() throws CharacterCodingException {
+        Random random = new Random(1);
+
+        for (int length = 1; length < 300; length += 7) {
+            String text = randomText(random, length);
+
+            ByteBuffer heap = getCharset().newEncoder().encode(CharBuffer.wrap(text.toCharArray()));
+            byte[] direct = encodeIntoSmallBuffers(getCharset().newEncoder(), CharBuffer.wrap(text), true);
+            assertEquals(ByteBuffer.wrap(direct), heap);
+
+            assertEquals(text, getCharset().newDecoder().decode(heap).toString());
+            ByteBuffer readOnly = ByteBuffer.wrap(direct).asReadOnlyBuffer();
+            assertEquals(text, decodeIntoSmallBuffers(getCharset().newDecoder(), readOnly));
+        }
+    }
 }
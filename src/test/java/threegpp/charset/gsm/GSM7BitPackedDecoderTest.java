@@ -25,13 +25,18 @@ import threegpp.charset.junit.DecoderTestRule;
 import threegpp.charset.EncodedText;
 import threegpp.charset.junit.TestDecoder;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static threegpp.charset.Common.decodeAtOnce;
 
 public class GSM7BitPackedDecoderTest extends TestDecoder {
+    private static final int SEPTETS_PER_BLOCK = 8;
 
     @Rule
     public DecoderTestRule decoderRule = new DecoderTestRule(new GSM7BitPackedCharset());
@@ -79,4 +84,215 @@ public class GSM7BitPackedDecoderTest extends TestDecoder {
     public void testEndingWithAt() throws CharacterCodingException {
         tryDecodeWith(EncodedText.GSM_7BP_AT);
     }
+
+    @Test
+    public void testSevenOctetCycleBoundary() throws CharacterCodingException {
+        tryDecodeWith(EncodedText.GSM_7BP_CYCLE);
+        tryDecodeWith(EncodedText.GSM_7BP_CYCLE_FULL);
+        tryDecodeWith(EncodedText.GSM_7BP_CYCLE_AT);
+    }
+
+    @Test
+    public void testDecodingBySevenOctetCycles() {
+        EncodedText encodedText = EncodedText.GSM_7BP_CYCLE_AT;
+        byte[] source = encodedText.getBytes();
+        CharBuffer out = CharBuffer.allocate(encodedText.getText().length());
+
+        for (int offset = 0; offset < source.length; offset += 7) {
+            ByteBuffer in = ByteBuffer.wrap(source, offset, 7).slice();
+            assertEquals(CoderResult.UNDERFLOW, getDecoder().decode(in, out, offset + 7 == source.length));
+        }
+        assertEquals(CoderResult.UNDERFLOW, getDecoder().flush(out));
+        assertEquals(encodedText.getText(), out.flip().toString());
+    }
+
+    @Test
+    public void testDecodingIntoSmallBuffers() {
+        tryDecodeIntoSmallBuffersWith(EncodedText.GSM_7BP);
+        reset();
+        tryDecodeIntoSmallBuffersWith(EncodedText.GSM_7BP_CYCLE_AT);
+    }
+
+    @Test
+    public void testReadOnlyDecodingIntoSmallBuffers() {
+        tryDecodeReadOnlyIntoSmallBuffersWith(EncodedText.GSM_7BP);
+    }
+
+    @Test
+    public void testFillBits() throws CharacterCodingException {
+        byte[] septets = EncodedText.GSM.getBytes();
+        String text = EncodedText.GSM.getText();
+        GSM7BitPackedDecoder decoder = (GSM7BitPackedDecoder) getDecoder();
+
+        for (int fillBits = 0; fillBits <= SeptetPacker.MAX_FILL_BITS; fillBits++) {
+            byte[] packed = new byte[SeptetPacker.packedLength(septets.length, fillBits)];
+            SeptetPacker.pack(septets, 0, septets.length, packed, 0, fillBits);
+            packed[0] |= (1 << fillBits) - 1;
+
+            decoder.reset();
+            assertEquals(text, decoder.fillBits(fillBits).decode(ByteBuffer.wrap(packed)).toString());
+            assertEquals(text, decoder.decode(ByteBuffer.wrap(packed)).toString());
+        }
+    }
+
+    @Test
+    public void testFillBitsPartialDecoding() {
+        byte[] septets = EncodedText.GSM.getBytes();
+        String text = EncodedText.GSM.getText();
+        byte[] packed = new byte[SeptetPacker.packedLength(septets.length, 6)];
+        SeptetPacker.pack(septets, 0, septets.length, packed, 0, 6);
+
+        GSM7BitPackedDecoder decoder = (GSM7BitPackedDecoder) getDecoder();
+        decoder.fillBits(6);
+        CharBuffer out = CharBuffer.allocate(text.length());
+        for (int i = 0; i < packed.length; i++) {
+            assertEquals(CoderResult.UNDERFLOW,
+                    decoder.decode(ByteBuffer.wrap(packed, i, 1), out, i == packed.length - 1));
+        }
+        assertEquals(CoderResult.UNDERFLOW, decoder.flush(out));
+        assertEquals(text, out.flip().toString());
+    }
+
+    @Test
+    public void testFillBitsAfterUserDataHeader() throws CharacterCodingException {
+        byte[] pdu = {0x05, 0x00, 0x03, 0x2A, 0x02, 0x01, 0, 0, 0, 0, 0};
+        byte[] septets = {0x48, 0x65, 0x6C, 0x6C, 0x6F};
+        int fillBits = 1;
+        int octets = SeptetPacker.pack(septets, 0, septets.length, pdu, 6, fillBits);
+
+        GSM7BitPackedDecoder decoder = ((GSM7BitPackedDecoder) getDecoder()).fillBits(fillBits);
+        assertEquals("Hello", decoder.decode(ByteBuffer.wrap(pdu, 6, octets)).toString());
+    }
+
+    @Test
+    public void testFillBitsTrailingAt() throws CharacterCodingException {
+        GSM7BitPackedCharset cs = new GSM7BitPackedCharset();
+        GSM7BitPackedDecoder decoder = (GSM7BitPackedDecoder) getDecoder();
+        String text = "";
+
+        for (int length = 1; length <= 2 * SEPTETS_PER_BLOCK; length++) {
+            text += "@";
+            for (int fillBits = 0; fillBits <= SeptetPacker.MAX_FILL_BITS; fillBits++) {
+                GSM7BitPackedEncoder encoder = ((GSM7BitPackedEncoder) cs.newEncoder()).fillBits(fillBits);
+                ByteBuffer packed = encoder.encode(CharBuffer.wrap(text));
+
+                // without spare bits the last '@' of more than one is indistinguishable from padding
+                boolean ambiguous = length > 1 && (length * 7 + fillBits) % 8 == 0;
+                String expected = ambiguous ? text.substring(1) : text;
+
+                decoder.reset();
+                assertEquals(length + " chars, " + fillBits + " fill bits",
+                        expected, decoder.fillBits(fillBits).decode(packed).toString());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFillBitsOutOfRange() {
+        ((GSM7BitPackedDecoder) getDecoder()).fillBits(-1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFillBitsChangedWhileDecoding() {
+        GSM7BitPackedDecoder decoder = (GSM7BitPackedDecoder) getDecoder();
+        decoder.decode(ByteBuffer.wrap(new byte[]{0x41}), CharBuffer.allocate(8), false);
+        decoder.fillBits(2);
+    }
+
+    @Test
+    public void testSeptetCountKeepsTrailingAt() throws CharacterCodingException {
+        byte[] source = EncodedText.GSM_7BP_CYCLE.getBytes();
+        GSM7BitPackedDecoder decoder = ((GSM7BitPackedDecoder) getDecoder()).septetCount(8);
+
+        assertEquals("ABCDEFG@", decoder.decode(ByteBuffer.wrap(source)).toString());
+        assertEquals("ABCDEFG@", decoder.decode(ByteBuffer.wrap(source)).toString());
+        assertEquals(8, decoder.septetCount());
+    }
+
+    @Test
+    public void testSeptetCountSkipsTrailingInput() throws CharacterCodingException {
+        ByteBuffer in = ByteBuffer.wrap(EncodedText.GSM_7BP_CYCLE_AT.getBytes());
+        GSM7BitPackedDecoder decoder = ((GSM7BitPackedDecoder) getDecoder()).septetCount(3);
+
+        assertEquals("ABC", decoder.decode(in).toString());
+        assertEquals(0, in.remaining());
+    }
+
+    @Test
+    public void testSeptetCountOfLongText() throws CharacterCodingException {
+        byte[] source = EncodedText.GSM_7BP.getBytes();
+        int septets = EncodedText.GSM.getBytes().length;
+        String text = EncodedText.GSM_7BP.getText();
+        GSM7BitPackedDecoder decoder = ((GSM7BitPackedDecoder) getDecoder()).septetCount(septets);
+
+        assertEquals(text, decoder.decode(ByteBuffer.wrap(source)).toString());
+
+        decoder.reset();
+        CharBuffer out = CharBuffer.allocate(text.length());
+        for (int i = 0; i < source.length; i++) {
+            assertEquals(CoderResult.UNDERFLOW,
+                    decoder.decode(ByteBuffer.wrap(source, i, 1), out, i == source.length - 1));
+        }
+        assertEquals(CoderResult.UNDERFLOW, decoder.flush(out));
+        assertEquals(text, out.flip().toString());
+    }
+
+    @Test
+    public void testSeptetCountWithFillBits() throws CharacterCodingException {
+        byte[] septets = {0x41, 0x42, 0x43, 0x44, 0x45, 0x46, 0x47, 0x00};
+        byte[] packed = new byte[SeptetPacker.packedLength(septets.length, 1)];
+        SeptetPacker.pack(septets, 0, septets.length, packed, 0, 1);
+
+        GSM7BitPackedDecoder decoder = ((GSM7BitPackedDecoder) getDecoder()).fillBits(1).septetCount(8);
+        assertEquals("ABCDEFG@", decoder.decode(ByteBuffer.wrap(packed)).toString());
+    }
+
+    @Test(expected = CharacterCodingException.class)
+    public void testSeptetCountBeyondInput() throws CharacterCodingException {
+        GSM7BitPackedDecoder decoder = ((GSM7BitPackedDecoder) getDecoder()).septetCount(9);
+        decoder.decode(ByteBuffer.wrap(EncodedText.GSM_7BP_CYCLE.getBytes()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSeptetCount() {
+        ((GSM7BitPackedDecoder) getDecoder()).septetCount(-2);
+    }
+
+    @Test
+    public void testCrPadding() throws CharacterCodingException {
+        byte[] padded = {0x41, (byte) 0xE1, (byte) 0x90, 0x58, 0x34, 0x1E, 0x1B};
+        GSM7BitPackedDecoder decoder = ((GSM7BitPackedDecoder) getDecoder()).crPadding(true);
+
+        assertEquals("ABCDEFG", decoder.decode(ByteBuffer.wrap(padded)).toString());
+        assertEquals("ABCDEFG@", decoder.decode(ByteBuffer.wrap(EncodedText.GSM_7BP_CYCLE.getBytes())).toString());
+        assertTrue(decoder.crPadding());
+    }
+
+    @Test
+    public void testCrPaddingRoundTrip() throws CharacterCodingException {
+        GSM7BitPackedCharset charset = new GSM7BitPackedCharset();
+        GSM7BitPackedEncoder encoder = ((GSM7BitPackedEncoder) charset.newEncoder()).crPadding(true);
+        GSM7BitPackedDecoder decoder = ((GSM7BitPackedDecoder) getDecoder()).crPadding(true);
+
+        String[] texts = {"", "A", "ABCDEFG", "ABCDEFG@", "ABCDEFG\r", "ABCDEF\r", "ABCDEFGHIJKLMN",
+                "*100#", EncodedText.GSM_7BP.getText()};
+        for (String text : texts) {
+            ByteBuffer encoded = encoder.encode(CharBuffer.wrap(text));
+            String decoded = decoder.decode(encoded).toString();
+            assertEquals(text.endsWith("ABCDEFG\r") ? text + "\r" : text, decoded);
+        }
+    }
+
+    @Test
+    public void testCrPaddingPartialDecoding() {
+        byte[] padded = {0x41, (byte) 0xE1, (byte) 0x90, 0x58, 0x34, 0x1E, 0x1B};
+        GSM7BitPackedDecoder decoder = ((GSM7BitPackedDecoder) getDecoder()).crPadding(true);
+        CharBuffer out = CharBuffer.allocate(8);
+        for (int i = 0; i < padded.length; i++) {
+            assertEquals(CoderResult.UNDERFLOW,
+                    decoder.decode(ByteBuffer.wrap(padded, i, 1), out, i == padded.length - 1));
+        }
+        assertEquals(CoderResult.UNDERFLOW, decoder.flush(out));
+        assertEquals("ABCDEFG", out.flip().toString());
+    }
 }
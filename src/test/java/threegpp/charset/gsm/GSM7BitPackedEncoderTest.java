@@ -25,9 +25,15 @@ import threegpp.charset.EncodedText;
 import threegpp.charset.junit.EncoderTestRule;
 import threegpp.charset.junit.TestEncoder;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static threegpp.charset.Common.encodeAtOnce;
 import static threegpp.charset.gsm.Common.checkEncodeAbility;
 
@@ -81,4 +87,117 @@ public class GSM7BitPackedEncoderTest extends TestEncoder {
     public void testEndingWithAt() throws CharacterCodingException {
         tryEncodeWith(EncodedText.GSM_7BP_AT);
    }
+
+    @Test
+    public void testSevenOctetCycleBoundary() throws CharacterCodingException {
+        tryEncodeWith(EncodedText.GSM_7BP_CYCLE);
+        tryEncodeWith(EncodedText.GSM_7BP_CYCLE_FULL);
+        tryEncodeWith(EncodedText.GSM_7BP_CYCLE_AT);
+    }
+
+    @Test
+    public void testEncodingIntoSmallBuffers() {
+        tryEncodeIntoSmallBuffersWith(EncodedText.GSM_7BP);
+        reset();
+        tryEncodeIntoSmallBuffersWith(EncodedText.GSM_7BP_SINGLE_EXT);
+    }
+
+    @Test
+    public void testReadOnlyEncodingIntoSmallBuffers() {
+        tryEncodeReadOnlyIntoSmallBuffersWith(EncodedText.GSM_7BP);
+    }
+
+    @Test
+    public void testFillBits() throws CharacterCodingException {
+        byte[] septets = EncodedText.GSM.getBytes();
+        String text = EncodedText.GSM.getText();
+        GSM7BitPackedEncoder encoder = (GSM7BitPackedEncoder) getEncoder();
+
+        for (int fillBits = 0; fillBits <= SeptetPacker.MAX_FILL_BITS; fillBits++) {
+            byte[] expected = new byte[SeptetPacker.packedLength(septets.length, fillBits)];
+            SeptetPacker.pack(septets, 0, septets.length, expected, 0, fillBits);
+
+            encoder.reset();
+            assertArrayEquals(expected, toArray(encoder.fillBits(fillBits).encode(CharBuffer.wrap(text))));
+            assertEquals(fillBits, encoder.fillBits());
+        }
+    }
+
+    @Test
+    public void testFillBitsSurviveReset() throws CharacterCodingException {
+        GSM7BitPackedEncoder encoder = (GSM7BitPackedEncoder) getEncoder();
+        encoder.fillBits(1);
+
+        byte[] first = toArray(encoder.encode(CharBuffer.wrap("@@")));
+        byte[] second = toArray(encoder.encode(CharBuffer.wrap("@@")));
+        assertArrayEquals(new byte[]{0, 0}, first);
+        assertArrayEquals(first, second);
+        assertEquals(0, encoder.encode(CharBuffer.wrap("")).remaining());
+    }
+
+    @Test
+    public void testFillBitsPartialEncoding() {
+        GSM7BitPackedEncoder encoder = (GSM7BitPackedEncoder) getEncoder();
+        String text = EncodedText.GSM.getText();
+        byte[] septets = EncodedText.GSM.getBytes();
+        byte[] expected = new byte[SeptetPacker.packedLength(septets.length, 3)];
+        SeptetPacker.pack(septets, 0, septets.length, expected, 0, 3);
+
+        encoder.fillBits(3);
+        ByteBuffer out = ByteBuffer.allocate(expected.length);
+        for (int i = 0; i < text.length(); i++) {
+            assertEquals(CoderResult.UNDERFLOW,
+                    encoder.encode(CharBuffer.wrap(text, i, i + 1), out, i == text.length() - 1));
+        }
+        assertEquals(CoderResult.UNDERFLOW, encoder.flush(out));
+        assertArrayEquals(expected, out.array());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFillBitsOutOfRange() {
+        ((GSM7BitPackedEncoder) getEncoder()).fillBits(SeptetPacker.MAX_FILL_BITS + 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFillBitsChangedWhileEncoding() {
+        GSM7BitPackedEncoder encoder = (GSM7BitPackedEncoder) getEncoder();
+        encoder.encode(CharBuffer.wrap("abc"), ByteBuffer.allocate(8), false);
+        encoder.fillBits(2);
+    }
+
+    @Test
+    public void testCrPaddingOfSevenSpareBits() throws CharacterCodingException {
+        GSM7BitPackedEncoder encoder = ((GSM7BitPackedEncoder) getEncoder()).crPadding(true);
+
+        byte[] expected = {0x41, (byte) 0xE1, (byte) 0x90, 0x58, 0x34, 0x1E, 0x1B};
+        assertArrayEquals(expected, toArray(encoder.encode(CharBuffer.wrap("ABCDEFG"))));
+        assertTrue(encoder.crPadding());
+    }
+
+    @Test
+    public void testCrPaddingDoublesTrailingCr() throws CharacterCodingException {
+        byte[] septets = {0x41, 0x42, 0x43, 0x44, 0x45, 0x46, 0x47, 0x0D, 0x0D};
+        byte[] expected = new byte[SeptetPacker.packedLength(septets.length, 0)];
+        SeptetPacker.pack(septets, 0, septets.length, expected, 0, 0);
+
+        GSM7BitPackedEncoder encoder = ((GSM7BitPackedEncoder) getEncoder()).crPadding(true);
+        assertArrayEquals(expected, toArray(encoder.encode(CharBuffer.wrap("ABCDEFG\r"))));
+    }
+
+    @Test
+    public void testCrPaddingLeavesOtherLengthsAlone() throws CharacterCodingException {
+        GSM7BitPackedEncoder encoder = ((GSM7BitPackedEncoder) getEncoder()).crPadding(true);
+
+        assertArrayEquals(EncodedText.GSM_7BP.getBytes(),
+                toArray(encoder.encode(CharBuffer.wrap(EncodedText.GSM_7BP.getText()))));
+        assertArrayEquals(EncodedText.GSM_7BP_CYCLE_FULL.getBytes(),
+                toArray(encoder.encode(CharBuffer.wrap(EncodedText.GSM_7BP_CYCLE_FULL.getText()))));
+        assertEquals(0, encoder.encode(CharBuffer.wrap("")).remaining());
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
 }
@@ -29,6 +29,7 @@ import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 
 import static org.junit.Assert.assertEquals;
 import static threegpp.charset.Common.decodeAtOnce;
@@ -86,4 +87,25 @@ public class GSMDecoderTest extends TestDecoder {
         String result = decodeAtOnce(getDecoder(), source, desiredResult.length());
         assertEquals(desiredResult, result);
     }
+
+    @Test
+    public void testOutOfTableByteReplaced() throws CharacterCodingException {
+        byte[] source = {0x41, (byte) 0x80, 0x1B, 0x3C, (byte) 0xFF, 0x42};
+        String desiredResult = "A\uFFFD[\uFFFDB";
+
+        getDecoder().onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        String result = decodeAtOnce(getDecoder(), source, desiredResult.length());
+        assertEquals(desiredResult, result);
+    }
+
+    @Test
+    public void testDecodingIntoSmallBuffers() {
+        tryDecodeIntoSmallBuffersWith(EncodedText.GSM);
+    }
+
+    @Test
+    public void testReadOnlyDecodingIntoSmallBuffers() {
+        tryDecodeReadOnlyIntoSmallBuffersWith(EncodedText.GSM);
+    }
 }
@@ -27,7 +27,9 @@ import threegpp.charset.junit.TestEncoder;
 
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 
+import static org.junit.Assert.assertArrayEquals;
 import static threegpp.charset.Common.encodeAtOnce;
 import static threegpp.charset.gsm.Common.checkEncodeAbility;
 
@@ -77,4 +79,24 @@ public class GSMEncoderTest extends TestEncoder {
         String source = "";
         encodeAtOnce(getEncoder(), source, source.length());
     }
+
+    @Test
+    public void testUnmappableCharReplaced() throws CharacterCodingException {
+        String source = "A\u0531{\uFFFFB";
+        byte[] desiredResult = {0x41, 0x3F, 0x1B, 0x28, 0x3F, 0x42};
+
+        getEncoder().onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        assertArrayEquals(desiredResult, encodeAtOnce(getEncoder(), source, desiredResult.length));
+    }
+
+    @Test
+    public void testEncodingIntoSmallBuffers() {
+        tryEncodeIntoSmallBuffersWith(EncodedText.GSM);
+    }
+
+    @Test
+    public void testReadOnlyEncodingIntoSmallBuffers() {
+        tryEncodeReadOnlyIntoSmallBuffersWith(EncodedText.GSM);
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.gsm;
+
+import org.junit.Test;
+import threegpp.charset.EncodedText;
+
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NationalLanguageSelectorTest {
+
+    private final NationalLanguageSelector selector = new NationalLanguageSelector();
+
+    @Test
+    public void testDefaultAlphabetText() {
+        checkSelection(NationalLanguage.DEFAULT, NationalLanguage.DEFAULT, 16, "Hello, {World}");
+        checkSelection(NationalLanguage.DEFAULT, NationalLanguage.DEFAULT, 0, "");
+    }
+
+    @Test
+    public void testLockingShiftIsCheaperThanEscapes() {
+        // the single shift table would take 2 septets for each of the two Turkish letters
+        checkSelection(NationalLanguage.TURKISH, NationalLanguage.DEFAULT, 4, "Işık");
+    }
+
+    @Test
+    public void testSingleShiftWhenLockingShiftLosesOtherChars() {
+        // Turkish locking shift table has no è, so ş has to be escaped
+        checkSelection(NationalLanguage.DEFAULT, NationalLanguage.TURKISH, 3, "èş");
+    }
+
+    @Test
+    public void testNationalTextWithDefaultExtension() {
+        // { is in the default extension table too, so the Turkish single shift table is not needed
+        checkSelection(NationalLanguage.TURKISH, NationalLanguage.DEFAULT,
+                EncodedText.GSM_TR.getBytes().length, EncodedText.GSM_TR.getText());
+        checkSelection(NationalLanguage.DEFAULT, NationalLanguage.SPANISH,
+                EncodedText.GSM_ES.getBytes().length, EncodedText.GSM_ES.getText());
+    }
+
+    @Test
+    public void testUnencodableText() {
+        assertFalse(selector.select("Hello 中"));
+        assertNull(selector.lockingShift());
+        assertNull(selector.singleShift());
+        assertEquals(-1, selector.septets());
+    }
+
+    @Test
+    public void testSeptetsMatchEncoder() throws CharacterCodingException {
+        String[] texts = {"Işık Ğüzel", "Años, ¿Qué? está", "Não, Ângela! €{ê}", "èş ç", "[Lorem] ~ipsum~"};
+        for (String text : texts) {
+            assertTrue(selector.select(text));
+            GSMCharset cs = GSMCharset.forLanguages(selector.lockingShift(), selector.singleShift());
+            assertEquals(text, selector.septets(), cs.newEncoder().encode(CharBuffer.wrap(text)).remaining());
+        }
+    }
+
+    private void checkSelection(NationalLanguage lockingShift, NationalLanguage singleShift, int septets,
+                                String text) {
+        assertTrue(selector.select(text));
+        assertEquals(lockingShift, selector.lockingShift());
+        assertEquals(singleShift, selector.singleShift());
+        assertEquals(septets, selector.septets());
+    }
+}
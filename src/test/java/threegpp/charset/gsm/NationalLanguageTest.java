@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.gsm;
+
+import org.junit.Test;
+import threegpp.charset.EncodedText;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NationalLanguageTest {
+
+    @Test
+    public void testForIdentifier() {
+        for (NationalLanguage language : NationalLanguage.values()) {
+            assertSame(language, NationalLanguage.forIdentifier(language.identifier()));
+        }
+        assertNull(NationalLanguage.forIdentifier(-1));
+        assertNull(NationalLanguage.forIdentifier(0x0E));
+    }
+
+    @Test
+    public void testIndicLanguagesAreNotProvidedYet() {
+        // Bengali (4) to Urdu (13): replace with round trip tests when the tables are added
+        for (int identifier = 4; identifier <= 13; identifier++) {
+            assertNull(NationalLanguage.forIdentifier(identifier));
+        }
+    }
+
+    @Test
+    public void testCharsetNames() {
+        assertEquals("X-GSM7BIT", GSMCharset.forLanguages(NationalLanguage.DEFAULT, NationalLanguage.DEFAULT).name());
+        assertEquals("X-GSM7BIT-LOCKING-TR-SHIFT-TR",
+                GSMCharset.forLanguages(NationalLanguage.TURKISH, NationalLanguage.TURKISH).name());
+        // Spanish has no locking shift table
+        assertEquals("X-GSM7BIT-SHIFT-ES",
+                GSMCharset.forLanguages(NationalLanguage.SPANISH, NationalLanguage.SPANISH).name());
+        assertEquals("X-GSM7BIT-PACKED-LOCKING-PT",
+                GSM7BitPackedCharset.forLanguages(NationalLanguage.PORTUGUESE, NationalLanguage.DEFAULT).name());
+    }
+
+    @Test
+    public void testEncode() throws CharacterCodingException {
+        checkEncode(EncodedText.GSM_TR, NationalLanguage.TURKISH);
+        checkEncode(EncodedText.GSM_ES, NationalLanguage.SPANISH);
+        checkEncode(EncodedText.GSM_PT, NationalLanguage.PORTUGUESE);
+    }
+
+    @Test
+    public void testDecode() throws CharacterCodingException {
+        checkDecode(EncodedText.GSM_TR, NationalLanguage.TURKISH);
+        checkDecode(EncodedText.GSM_ES, NationalLanguage.SPANISH);
+        checkDecode(EncodedText.GSM_PT, NationalLanguage.PORTUGUESE);
+    }
+
+    @Test
+    public void testPackedRoundTrip() throws CharacterCodingException {
+        for (EncodedText text : new EncodedText[] {EncodedText.GSM_TR, EncodedText.GSM_ES, EncodedText.GSM_PT}) {
+            for (NationalLanguage language : NationalLanguage.values()) {
+                Charset cs = GSM7BitPackedCharset.forLanguages(language, language);
+                if (!cs.newEncoder().canEncode(text.getText())) {
+                    continue;
+                }
+                ByteBuffer encoded = cs.newEncoder().encode(CharBuffer.wrap(text.getText()));
+                assertEquals(text.getText(), cs.newDecoder().decode(encoded).toString());
+            }
+        }
+    }
+
+    @Test
+    public void testAbilityToEncode() {
+        assertFalse(new GSMCharset().newEncoder().canEncode(EncodedText.GSM_TR.getText()));
+        assertTrue(GSMCharset.forLanguages(NationalLanguage.TURKISH, NationalLanguage.TURKISH).newEncoder()
+                .canEncode(EncodedText.GSM_TR.getText()));
+        assertTrue(GSMCharset.forLanguages(NationalLanguage.DEFAULT, NationalLanguage.TURKISH).newEncoder()
+                .canEncode('ı'));
+        assertFalse(GSMCharset.forLanguages(NationalLanguage.DEFAULT, NationalLanguage.SPANISH).newEncoder()
+                .canEncode('ı'));
+    }
+
+    @Test
+    public void testDecoderHonoursLockingShift() throws CharacterCodingException {
+        ByteBuffer in = ByteBuffer.wrap(new byte[] {0x07});
+        assertEquals("ì", new GSMCharset().newDecoder().decode(in).toString());
+        in.rewind();
+        assertEquals("ı", GSMCharset.forLanguages(NationalLanguage.TURKISH, NationalLanguage.DEFAULT)
+                .newDecoder().decode(in).toString());
+    }
+
+    @Test
+    public void testCheckContains() {
+        GSMCharset turkish = GSMCharset.forLanguages(NationalLanguage.TURKISH, NationalLanguage.TURKISH);
+        assertTrue(turkish.contains(GSMCharset.forLanguages(NationalLanguage.TURKISH, NationalLanguage.TURKISH)));
+        assertFalse(turkish.contains(new GSMCharset()));
+        assertFalse(new GSMCharset().contains(turkish));
+        assertTrue(GSM7BitPackedCharset.forLanguages(NationalLanguage.TURKISH, NationalLanguage.TURKISH)
+                .contains(turkish));
+    }
+
+    private static void checkEncode(EncodedText text, NationalLanguage language) throws CharacterCodingException {
+        Charset cs = GSMCharset.forLanguages(language, language);
+        ByteBuffer encoded = cs.newEncoder().encode(CharBuffer.wrap(text.getText()));
+        byte[] result = new byte[encoded.remaining()];
+        encoded.get(result);
+        assertArrayEquals(text.getBytes(), result);
+    }
+
+    private static void checkDecode(EncodedText text, NationalLanguage language) throws CharacterCodingException {
+        Charset cs = GSMCharset.forLanguages(language, language);
+        assertEquals(text.getText(), cs.newDecoder().decode(ByteBuffer.wrap(text.getBytes())).toString());
+    }
+}
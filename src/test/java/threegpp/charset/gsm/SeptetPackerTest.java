@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.gsm;
+
+import org.junit.Test;
+import threegpp.charset.EncodedText;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static javax.xml.bind.DatatypeConverter.parseHexBinary;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SeptetPackerTest {
+    private static final int MAX_SEPTETS = 50;
+    private static final int OFFSET = 3;
+
+    @Test
+    public void testPackKnownText() {
+        byte[] septets = "ABCDEFG@ABCDEFG".replace('@', '\u0000').getBytes();
+        byte[] desiredResult = EncodedText.GSM_7BP_CYCLE_AT.getBytes();
+        byte[] result = new byte[desiredResult.length];
+
+        assertEquals(desiredResult.length, SeptetPacker.pack(septets, 0, septets.length, result, 0, 0));
+        assertArrayEquals(desiredResult, result);
+    }
+
+    @Test
+    public void testPackWithFillBits() {
+        // "Hi" after a 6 octet UDH, one fill bit
+        byte[] septets = {0x48, 0x69};
+        byte[] result = new byte[2];
+
+        assertEquals(2, SeptetPacker.pack(septets, 0, septets.length, result, 0, 1));
+        assertArrayEquals(parseHexBinary("9069"), result);
+    }
+
+    @Test
+    public void testRoundTripAgainstBitByBitPacking() {
+        Random random = new Random(7);
+
+        for (int fillBits = 0; fillBits <= SeptetPacker.MAX_FILL_BITS; fillBits++) {
+            for (int length = 0; length <= MAX_SEPTETS; length++) {
+                byte[] septets = new byte[OFFSET + length];
+                for (int i = OFFSET; i < septets.length; i++) {
+                    septets[i] = (byte) random.nextInt(0x80);
+                }
+                int packedLength = SeptetPacker.packedLength(length, fillBits);
+                byte[] packed = new byte[OFFSET + packedLength];
+
+                assertEquals(packedLength, SeptetPacker.pack(septets, OFFSET, length, packed, OFFSET, fillBits));
+                assertArrayEquals(packBitByBit(septets, OFFSET, length, fillBits),
+                        Arrays.copyOfRange(packed, OFFSET, packed.length));
+
+                byte[] unpacked = new byte[OFFSET + length];
+                assertEquals(packedLength, SeptetPacker.unpack(packed, OFFSET, length, unpacked, OFFSET, fillBits));
+                assertArrayEquals(septets, unpacked);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFillBits() {
+        SeptetPacker.packedLength(1, SeptetPacker.MAX_FILL_BITS + 1);
+    }
+
+    private static byte[] packBitByBit(byte[] septets, int off, int len, int fillBits) {
+        byte[] result = new byte[SeptetPacker.packedLength(len, fillBits)];
+        for (int i = 0; i < len; i++) {
+            for (int bit = 0; bit < 7; bit++) {
+                if ((septets[off + i] >> bit & 1) != 0) {
+                    int position = fillBits + i * 7 + bit;
+                    result[position / 8] |= 1 << position % 8;
+                }
+            }
+        }
+        return result;
+    }
+}
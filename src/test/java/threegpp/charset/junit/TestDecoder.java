@@ -29,6 +29,7 @@ import java.nio.charset.CharsetDecoder;
 import static org.junit.Assert.assertEquals;
 import static threegpp.charset.Common.decodeAtOnce;
 import static threegpp.charset.Common.decodeByParts;
+import static threegpp.charset.Common.decodeIntoSmallBuffers;
 
 public abstract class TestDecoder {
 
@@ -54,6 +55,19 @@ public abstract class TestDecoder {
         assertEquals(desiredResult, decodeByParts(getDecoder(), encodedText.getBytes(), desiredResult.length()));
     }
 
+    /**
+     * Decode from a read-only buffer (no accessible backing array) into output buffers of a few chars each.
+     */
+    protected void tryDecodeReadOnlyIntoSmallBuffersWith(EncodedText encodedText) {
+        ByteBuffer in = ByteBuffer.wrap(encodedText.getBytes()).asReadOnlyBuffer();
+        assertEquals(encodedText.getText(), decodeIntoSmallBuffers(getDecoder(), in));
+    }
+
+    protected void tryDecodeIntoSmallBuffersWith(EncodedText encodedText) {
+        ByteBuffer in = ByteBuffer.wrap(encodedText.getBytes());
+        assertEquals(encodedText.getText(), decodeIntoSmallBuffers(getDecoder(), in));
+    }
+
     protected void tryToRepeatDecodingReusingDecoder(EncodedText encodedText) throws CharacterCodingException {
         int i = REPEATS_COUNT;
         while (i-- > 0) {
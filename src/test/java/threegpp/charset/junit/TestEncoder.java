@@ -29,6 +29,7 @@ import java.nio.charset.CharsetEncoder;
 import static org.junit.Assert.assertArrayEquals;
 import static threegpp.charset.Common.encodeAtOnce;
 import static threegpp.charset.Common.encodeByChunks;
+import static threegpp.charset.Common.encodeIntoSmallBuffers;
 
 public abstract class TestEncoder {
 
@@ -57,6 +58,19 @@ public abstract class TestEncoder {
         assertArrayEquals(desiredResult, encodeByChunks(getEncoder(), encodedText.getText(), desiredResult.length));
     }
 
+    /**
+     * Encode from a read-only buffer (no accessible backing array) into direct output buffers of a few bytes each.
+     */
+    protected void tryEncodeReadOnlyIntoSmallBuffersWith(EncodedText encodedText) {
+        CharBuffer in = CharBuffer.wrap(encodedText.getText()).asReadOnlyBuffer();
+        assertArrayEquals(encodedText.getBytes(), encodeIntoSmallBuffers(getEncoder(), in, true));
+    }
+
+    protected void tryEncodeIntoSmallBuffersWith(EncodedText encodedText) {
+        CharBuffer in = CharBuffer.wrap(encodedText.getText().toCharArray());
+        assertArrayEquals(encodedText.getBytes(), encodeIntoSmallBuffers(getEncoder(), in, false));
+    }
+
     protected void tryToRepeatEncodingReusingEncoder(EncodedText encodedText) throws CharacterCodingException {
         int i = REPEATS_COUNT;
         while (i-- > 0) {
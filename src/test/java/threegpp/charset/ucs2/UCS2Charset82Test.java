@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.ucs2;
+
+import org.junit.Rule;
+import org.junit.Test;
+import threegpp.charset.EncodedText;
+import threegpp.charset.junit.CharsetTestRule;
+import threegpp.charset.junit.TestCharset;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+import java.util.List;
+
+public class UCS2Charset82Test extends TestCharset<UCS2Encoder82, UCS2Decoder82> {
+
+    @Rule
+    public CharsetTestRule charsetRule = new CharsetTestRule(new CharsetTestRule.Supplier() {
+        @Override
+        public Charset get() {
+            return new UCS2Charset82();
+        }
+    });
+
+    @Override
+    protected Charset getCharset() {
+        return charsetRule.getCharset();
+    }
+
+    @Test
+    public void testCheckContains() {
+        List<Charset> charsets = new LinkedList<>();
+        charsets.add(getCharset());
+        charsets.add(StandardCharsets.US_ASCII);
+
+        checkContainsSuccessful(charsets);
+    }
+
+    @Test
+    public void testAbilityToEncode() {
+        checkCanEncodeSuccess();
+    }
+
+    @Test
+    public void testDecode() {
+        checkDecode(EncodedText.UCS2_82);
+        checkDecode(EncodedText.UCS2_82_SINGLE);
+        checkDecode(EncodedText.UCS2_82_CROSS_HALF_PAGE);
+    }
+
+    @Test
+    public void testEncode() {
+        checkEncode(EncodedText.UCS2_82);
+        checkEncode(EncodedText.UCS2_82_SINGLE);
+        checkEncode(EncodedText.UCS2_82_CROSS_HALF_PAGE);
+    }
+
+    @Test
+    public void testEncoderType() {
+        checkNewEncoder(UCS2Encoder82.class);
+    }
+
+    @Test
+    public void testDecoderType() {
+        checkNewDecoder(UCS2Decoder82.class);
+    }
+}
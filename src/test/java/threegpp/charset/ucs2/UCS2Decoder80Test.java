@@ -26,8 +26,13 @@ import threegpp.charset.EncodedText;
 import threegpp.charset.junit.TestDecoder;
 
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.MalformedInputException;
+import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
 import static threegpp.charset.Common.decodeAtOnce;
@@ -76,4 +81,140 @@ public class UCS2Decoder80Test extends TestDecoder {
         String result = decodeAtOnce(getDecoder(), source, desiredResult.length());
         assertEquals(desiredResult, result);
     }
+
+    @Test
+    public void testDecodingIntoSmallBuffers() {
+        tryDecodeIntoSmallBuffersWith(EncodedText.UCS2_80);
+    }
+
+    @Test
+    public void testReadOnlyDecodingIntoSmallBuffers() {
+        tryDecodeReadOnlyIntoSmallBuffersWith(EncodedText.UCS2_80);
+    }
+
+    @Test(expected = MalformedInputException.class)
+    public void testTruncatedInput() throws CharacterCodingException {
+        byte[] source = EncodedText.UCS2_80.getBytes();
+        decode(ByteBuffer.wrap(Arrays.copyOf(source, source.length - 1)));
+    }
+
+    @Test
+    public void testTruncatedInputReplaced() throws CharacterCodingException {
+        byte[] source = EncodedText.UCS2_80_SINGLE.getBytes();
+        byte[] truncated = Arrays.copyOf(source, source.length + 1);
+        String desiredResult = EncodedText.UCS2_80_SINGLE.getText() + "\uFFFD";
+
+        getDecoder().onMalformedInput(CodingErrorAction.REPLACE);
+
+        assertEquals(desiredResult, decodeAtOnce(getDecoder(), truncated, desiredResult.length()));
+    }
+
+    @Test(expected = MalformedInputException.class)
+    public void testUnpairedHighSurrogate() throws CharacterCodingException {
+        byte[] source = {(byte) 0x80, (byte) 0xD8, 0x3D, 0x00, 0x41};
+        decode(ByteBuffer.wrap(source));
+    }
+
+    @Test(expected = MalformedInputException.class)
+    public void testUnpairedLowSurrogate() throws CharacterCodingException {
+        byte[] source = {(byte) 0x80, 0x00, 0x41, (byte) 0xDE, 0x00};
+        decode(ByteBuffer.wrap(source));
+    }
+
+    @Test(expected = MalformedInputException.class)
+    public void testTruncatedSurrogatePair() throws CharacterCodingException {
+        byte[] source = {(byte) 0x80, 0x00, 0x41, (byte) 0xD8, 0x3D};
+        decode(ByteBuffer.wrap(source));
+    }
+
+    @Test
+    public void testUnpairedSurrogatesReplaced() throws CharacterCodingException {
+        byte[] source = {(byte) 0x80, (byte) 0xD8, 0x3D, 0x00, 0x41, (byte) 0xDE, 0x00, (byte) 0xD8, 0x3D};
+        String desiredResult = "\uFFFDA\uFFFD\uFFFD";
+
+        getDecoder().onMalformedInput(CodingErrorAction.REPLACE);
+
+        assertEquals(desiredResult, decodeAtOnce(getDecoder(), source, desiredResult.length()));
+    }
+
+    @Test
+    public void testSurrogatePair() throws CharacterCodingException {
+        byte[] source = {(byte) 0x80, 0x00, 0x41, (byte) 0xD8, 0x3D, (byte) 0xDE, 0x00, 0x00, 0x42};
+        String desiredResult = "A\uD83D\uDE00B";
+
+        assertEquals(desiredResult, decodeAtOnce(getDecoder(), source, desiredResult.length()));
+    }
+
+    @Test
+    public void testSurrogatePairSplitBetweenCalls() {
+        byte[] source = {(byte) 0x80, 0x00, 0x41, (byte) 0xD8, 0x3D, (byte) 0xDE, 0x00, 0x00, 0x42};
+        String desiredResult = "A\uD83D\uDE00B";
+        CharsetDecoder decoder = getDecoder();
+        CharBuffer out = CharBuffer.allocate(desiredResult.length());
+
+        ByteBuffer in = ByteBuffer.allocate(source.length);
+
+        // input left by the decoder is supplied again with the next byte
+        for (byte b : source) {
+            in.put(b).flip();
+            assertEquals(CoderResult.UNDERFLOW, decoder.decode(in, out, false));
+            in.compact();
+        }
+        in.flip();
+        assertEquals(CoderResult.UNDERFLOW, decoder.decode(in, out, true));
+        assertEquals(CoderResult.UNDERFLOW, decoder.flush(out));
+        assertEquals(desiredResult, out.flip().toString());
+    }
+
+    @Test
+    public void testUnpairedHighSurrogateReported() {
+        ByteBuffer in = ByteBuffer.wrap(new byte[]{(byte) 0x80, (byte) 0xD8, 0x3D, 0x00, 0x41});
+        CharBuffer out = CharBuffer.allocate(2);
+
+        CoderResult result = getDecoder().decode(in, out, true);
+        assertEquals(CoderResult.malformedForLength(2), result);
+        assertEquals(1, in.position());
+    }
+
+    @Test
+    public void testUnpairedHighSurrogateLeftInInput() {
+        CharsetDecoder decoder = getDecoder();
+        ByteBuffer in = ByteBuffer.allocate(8);
+        CharBuffer out = CharBuffer.allocate(2);
+
+        in.put(new byte[]{(byte) 0x80, (byte) 0xD8, 0x3D}).flip();
+        assertEquals(CoderResult.UNDERFLOW, decoder.decode(in, out, false));
+        assertEquals(1, in.position());
+
+        in.compact().put(new byte[]{0x00, 0x41}).flip();
+        assertEquals(CoderResult.malformedForLength(2), decoder.decode(in, out, true));
+        assertEquals(0, in.position());
+    }
+
+    @Test
+    public void testUnpairedHighSurrogateSplitInsideUnit() {
+        CharsetDecoder decoder = getDecoder();
+        CharBuffer out = CharBuffer.allocate(2);
+
+        assertEquals(CoderResult.UNDERFLOW,
+                decoder.decode(ByteBuffer.wrap(new byte[]{(byte) 0x80, (byte) 0xD8}), out, false));
+
+        ByteBuffer in = ByteBuffer.wrap(new byte[]{0x3D, 0x00, 0x41});
+        assertEquals(CoderResult.malformedForLength(1), decoder.decode(in, out, true));
+        assertEquals(0, in.position());
+    }
+
+    @Test
+    public void testUnpairedHighSurrogateSplitInsideUnitReplaced() {
+        CharsetDecoder decoder = getDecoder();
+        decoder.onMalformedInput(CodingErrorAction.REPLACE);
+        CharBuffer out = CharBuffer.allocate(4);
+
+        assertEquals(CoderResult.UNDERFLOW,
+                decoder.decode(ByteBuffer.wrap(new byte[]{(byte) 0x80, (byte) 0xD8}), out, false));
+        assertEquals(CoderResult.UNDERFLOW,
+                decoder.decode(ByteBuffer.wrap(new byte[]{0x3D, 0x00, 0x41}), out, true));
+        assertEquals(CoderResult.UNDERFLOW, decoder.flush(out));
+        assertEquals("\uFFFDA", out.flip().toString());
+    }
 }
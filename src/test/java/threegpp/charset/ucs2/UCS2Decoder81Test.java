@@ -82,4 +82,22 @@ public class UCS2Decoder81Test extends TestDecoder {
         String result = decodeAtOnce(getDecoder(), source, desiredResult.length());
         assertEquals(desiredResult, result);
     }
+
+    @Test
+    public void testLongTextInHighHalfPage() throws CharacterCodingException {
+        // more than 127 chars and a half page pointer with the most significant bit set
+        int length = 200;
+        StringBuilder text = new StringBuilder();
+        byte[] source = new byte[3 + length];
+        source[0] = (byte) UCS2Charset81.CHARSET_TAG;
+        source[1] = (byte) length;
+        source[2] = (byte) 0x9C;
+        for (int i = 0; i < length; i++) {
+            source[3 + i] = (byte) 0xAD;
+            text.append('\u4E2D');
+        }
+
+        String result = decodeAtOnce(getDecoder(), source, length);
+        assertEquals(text.toString(), result);
+    }
 }
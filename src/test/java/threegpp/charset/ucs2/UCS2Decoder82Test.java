@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.ucs2;
+
+import org.junit.Rule;
+import org.junit.Test;
+import threegpp.charset.junit.DecoderTestRule;
+import threegpp.charset.EncodedText;
+import threegpp.charset.junit.TestDecoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.MalformedInputException;
+
+import static org.junit.Assert.assertEquals;
+import static threegpp.charset.Common.decodeAtOnce;
+
+public class UCS2Decoder82Test extends TestDecoder {
+
+    @Rule
+    public DecoderTestRule decoderRule = new DecoderTestRule(new UCS2Charset82());
+
+    @Override
+    protected CharsetDecoder getDecoder() {
+        return decoderRule.getDecoder();
+    }
+
+    @Test
+    public void testDecodeAtOnce() throws CharacterCodingException {
+        tryDecodeWith(EncodedText.UCS2_82);
+    }
+
+    @Test(expected = CharacterCodingException.class)
+    public void testAbilityToDecode() throws CharacterCodingException {
+        ByteBuffer in = ByteBuffer.wrap(EncodedText.UCS2_INVALID.getBytes());
+        decode(in);
+    }
+
+    @Test
+    public void testPartialDecoding() {
+        tryDecodeByPartsWith(EncodedText.UCS2_82);
+    }
+
+    @Test
+    public void testDecoderReusability() throws CharacterCodingException {
+        tryToRepeatDecodingReusingDecoder(EncodedText.UCS2_82);
+    }
+
+    @Test
+    public void testSingleCharEncodedAsBytes() throws CharacterCodingException {
+        tryDecodeWith(EncodedText.UCS2_82_SINGLE);
+    }
+
+    @Test(expected = MalformedInputException.class)
+    public void testSingleCharWithInvalidLengthField() throws CharacterCodingException {
+        tryDecodeWith(EncodedText.UCS2_82_SINGLE_INVALID_LENGTH);
+    }
+
+    @Test
+    public void testZeroLengthInput() throws CharacterCodingException {
+        byte[] source = {};
+        String desiredResult = "";
+
+        String result = decodeAtOnce(getDecoder(), source, desiredResult.length());
+        assertEquals(desiredResult, result);
+    }
+
+    @Test
+    public void testCrossHalfPageText() throws CharacterCodingException {
+        tryDecodeWith(EncodedText.UCS2_82_CROSS_HALF_PAGE);
+    }
+
+    @Test
+    public void testDecodingIntoSmallBuffers() {
+        tryDecodeIntoSmallBuffersWith(EncodedText.UCS2_82);
+    }
+
+    @Test
+    public void testRecordPaddingIsSkipped() throws CharacterCodingException {
+        byte[] text = EncodedText.UCS2_82_SINGLE.getBytes();
+        byte[] record = {text[0], text[1], text[2], text[3], text[4], (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+
+        String result = decodeAtOnce(getDecoder(), record, 1);
+        assertEquals(EncodedText.UCS2_82_SINGLE.getText(), result);
+    }
+
+    @Test
+    public void testTruncatedHeaderIsReplaced() throws CharacterCodingException {
+        byte[] source = {(byte) UCS2Charset82.CHARSET_TAG, 0x01, 0x00};
+        getDecoder().onMalformedInput(CodingErrorAction.REPLACE);
+
+        String result = decodeAtOnce(getDecoder(), source, 1);
+        assertEquals("\uFFFD", result);
+    }
+
+    @Test
+    public void testLongText() throws CharacterCodingException {
+        StringBuilder text = new StringBuilder();
+        byte[] source = new byte[4 + 0xFF];
+        source[0] = (byte) UCS2Charset82.CHARSET_TAG;
+        source[1] = (byte) 0xFF;
+        source[2] = 0x04;
+        for (int i = 0; i < 0xFF; i++) {
+            source[4 + i] = (byte) (0x80 + i % 0x80);
+            text.append((char) (0x0400 + i % 0x80));
+        }
+
+        String result = decodeAtOnce(getDecoder(), source, text.length());
+        assertEquals(text.toString(), result);
+    }
+}
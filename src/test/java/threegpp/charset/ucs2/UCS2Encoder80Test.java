@@ -25,9 +25,16 @@ import threegpp.charset.EncodedText;
 import threegpp.charset.junit.EncoderTestRule;
 import threegpp.charset.junit.TestEncoder;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.UnmappableCharacterException;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static threegpp.charset.Common.encodeAtOnce;
 
@@ -72,4 +79,41 @@ public class UCS2Encoder80Test extends TestEncoder {
         String source = "";
         encodeAtOnce(getEncoder(), source, source.length());
     }
+
+    @Test
+    public void testEncodingIntoSmallBuffers() {
+        tryEncodeIntoSmallBuffersWith(EncodedText.UCS2_80);
+    }
+
+    @Test
+    public void testReadOnlyEncodingIntoSmallBuffers() {
+        tryEncodeReadOnlyIntoSmallBuffersWith(EncodedText.UCS2_80);
+    }
+
+    @Test
+    public void testAbilityToEncodeSurrogates() {
+        assertFalse(getEncoder().canEncode('\uD83D'));
+        assertFalse(getEncoder().canEncode("A\uD83D\uDE00"));
+    }
+
+    @Test(expected = UnmappableCharacterException.class)
+    public void testSurrogatePairIsUnmappable() throws CharacterCodingException {
+        getEncoder().encode(CharBuffer.wrap("A\uD83D\uDE00"));
+    }
+
+    @Test(expected = MalformedInputException.class)
+    public void testLoneSurrogateIsMalformed() throws CharacterCodingException {
+        getEncoder().encode(CharBuffer.wrap("A\uDE00B"));
+    }
+
+    @Test
+    public void testSurrogatesAreReplaced() throws CharacterCodingException {
+        CharsetEncoder encoder = getEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer result = encoder.encode(CharBuffer.wrap("A\uD83D\uDE00\uDE00"));
+        byte[] bytes = new byte[result.remaining()];
+        result.get(bytes);
+        assertArrayEquals(new byte[] {(byte) 0x80, 0x00, 'A', 0x00, '?', 0x00, '?'}, bytes);
+    }
 }
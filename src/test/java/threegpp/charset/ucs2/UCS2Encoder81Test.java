@@ -60,6 +60,13 @@ public class UCS2Encoder81Test extends TestEncoder {
         }
     }
 
+    @Test
+    public void testAbilityToEncodeOutOfHalfPageRange() {
+        assertTrue(getEncoder().canEncode('\u7FFF'));
+        assertFalse(getEncoder().canEncode('\u8041'));
+        assertFalse(getEncoder().canEncode("A\u8041"));
+    }
+
     @Test(expected = UnmappableCharacterException.class)
     public void testWithUnsupportedText() throws CharacterCodingException {
         encodeAtOnce(getEncoder(), UNSUPPORTED_TEXT, 0);
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2017-2018 Constantin Roganov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package threegpp.charset.ucs2;
+
+import org.junit.Rule;
+import org.junit.Test;
+import threegpp.charset.EncodedText;
+import threegpp.charset.junit.EncoderTestRule;
+import threegpp.charset.junit.TestEncoder;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.UnmappableCharacterException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static threegpp.charset.Common.encodeAtOnce;
+
+public class UCS2Encoder82Test extends TestEncoder {
+    private static final String UNSUPPORTED_TEXT = EncodedText.UCS2_80.getText();
+
+    @Rule
+    public EncoderTestRule encoderRule = new EncoderTestRule(new UCS2Charset82());
+
+    @Override
+    protected CharsetEncoder getEncoder() {
+        return encoderRule.getEncoder();
+    }
+
+    @Test
+    public void testEncodeAtOnce() throws CharacterCodingException {
+        tryEncodeWith(EncodedText.UCS2_82);
+    }
+
+    @Test
+    public void testAbilityToEncode() {
+        assertTrue(getEncoder().canEncode(EncodedText.UCS2_82.getText()));
+        assertFalse(getEncoder().canEncode(UNSUPPORTED_TEXT));
+
+        String [] fragments = UNSUPPORTED_TEXT.split(" ");
+        for (String fragment : fragments) {
+            assertTrue(getEncoder().canEncode(fragment));
+        }
+    }
+
+    @Test
+    public void testAbilityToEncodeCrossHalfPageText() {
+        assertTrue(getEncoder().canEncode(EncodedText.UCS2_82_CROSS_HALF_PAGE.getText()));
+        assertTrue(getEncoder().canEncode("\u8041\u80C0"));
+        assertFalse(getEncoder().canEncode("\u8041\u80C1"));
+        assertFalse(getEncoder().canEncode("A\uD83D\uDE00"));
+    }
+
+    @Test
+    public void testCrossHalfPageText() throws CharacterCodingException {
+        tryEncodeWith(EncodedText.UCS2_82_CROSS_HALF_PAGE);
+    }
+
+    @Test
+    public void testBasePointerIsLowestChar() throws CharacterCodingException {
+        // the first char is not the lowest one
+        String source = "\u0489\u0460";
+        byte[] result = encodeAtOnce(getEncoder(), source, 6);
+        assertArrayEquals(new byte[] {(byte) 0x82, 0x02, 0x04, 0x60, (byte) 0xA9, (byte) 0x80}, result);
+    }
+
+    @Test
+    public void testBasePointerDoesNotDependOnInputSplit() {
+        CharsetEncoder encoder = getEncoder();
+        ByteBuffer out = ByteBuffer.allocate(8);
+
+        assertEquals(CoderResult.UNDERFLOW, encoder.encode(CharBuffer.wrap("\u0480"), out, false));
+        assertEquals(CoderResult.UNDERFLOW, encoder.encode(CharBuffer.wrap("\u0460"), out, true));
+        assertEquals(CoderResult.UNDERFLOW, encoder.flush(out));
+
+        byte[] expected = {(byte) 0x82, 0x02, 0x04, 0x60, (byte) 0xA0, (byte) 0x80};
+        assertArrayEquals(expected, Arrays.copyOf(out.array(), out.position()));
+    }
+
+    @Test(expected = UnmappableCharacterException.class)
+    public void testWithUnsupportedText() throws CharacterCodingException {
+        encodeAtOnce(getEncoder(), UNSUPPORTED_TEXT, 0);
+    }
+
+    @Test
+    public void testEncodingByParts() {
+        tryEncodeByPartsWith(EncodedText.UCS2_82);
+    }
+
+    @Test
+    public void testEncoderReusability() throws CharacterCodingException {
+        tryToRepeatEncodingReusingEncoder(EncodedText.UCS2_82);
+    }
+
+    @Test
+    public void testSingleChar() throws CharacterCodingException {
+        tryEncodeWith(EncodedText.UCS2_82_SINGLE);
+    }
+
+    @Test
+    public void testZeroLengthInput() throws CharacterCodingException {
+        String source = "";
+        encodeAtOnce(getEncoder(), source, source.length());
+    }
+
+    @Test
+    public void testReplacementIsCounted() throws CharacterCodingException {
+        String source = "\u0410\u0411X\u4E00\u0412";
+        byte[] expected = {(byte) 0x82, 0x05, 0x04, 0x10, (byte) 0x80, (byte) 0x81, 0x58, 0x3F, (byte) 0x82};
+        UCS2Charset82 charset = new UCS2Charset82();
+
+        assertArrayEquals(expected, source.getBytes(charset));
+        assertEquals("\u0410\u0411X?\u0412", new String(expected, charset));
+
+        getEncoder().onUnmappableCharacter(CodingErrorAction.IGNORE);
+        byte[] ignored = {(byte) 0x82, 0x04, 0x04, 0x10, (byte) 0x80, (byte) 0x81, 0x58, (byte) 0x82};
+        assertArrayEquals(ignored, encodeAtOnce(getEncoder(), source, ignored.length));
+    }
+
+    @Test
+    public void testEncodingIntoSmallBuffers() {
+        tryEncodeIntoSmallBuffersWith(EncodedText.UCS2_82);
+        reset();
+        tryEncodeReadOnlyIntoSmallBuffersWith(EncodedText.UCS2_82_SINGLE);
+    }
+}